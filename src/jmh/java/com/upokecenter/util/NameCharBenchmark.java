@@ -0,0 +1,180 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+    /**
+     * Compares TurtleParser's name-character bitmaps with the range chains
+     * they are built from, on local names like those in real documents:
+     * mostly ASCII, with some Latin-1, Greek and CJK names. The plain
+     * benchmarks check every character as a name character; the "ByName"
+     * ones check each name's first character as a start character and the
+     * rest as name characters, as readOptionalLocalName does, so they also
+     * pay for a short loop per name. Scores are per character.
+     */
+  @State(Scope.Benchmark)
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Fork(1)
+  public class NameCharBenchmark {
+    private static final int Chars = 1 << 16;
+
+    private static final String[] LocalNames = {
+      "type", "label", "name", "hasPart", "dateOfBirth", "Q42", "P31",
+      "schemaVersion_2", "b0", "node123", "M\u00fcller", "Z\u00fcrich",
+      "caf\u00e9", "\u0395\u03bb\u03bb\u03ac\u03b4\u03b1",
+      "\u6771\u4eac\u90fd", "r\u00e9sum\u00e9", "item-7", "isPartOf",
+      "foaf_knows", "givenName"
+    };
+
+    // Code points of the names, one after another, and the index
+    // just past each name
+    private int[] codePoints;
+    private int[] nameEnds;
+
+    /**
+     * Builds the names to classify, after checking that the bitmaps agree
+     * with the range chains for every code point.
+     * @throws IllegalStateException The bitmaps and range chains disagree.
+     */
+    @Setup
+    public void setUp() {
+      int mismatches = countMismatches();
+      if (mismatches != 0) {
+        throw new IllegalStateException(mismatches +
+          " code points classified differently");
+      }
+      this.codePoints = new int[Chars];
+      List<Integer> ends = new ArrayList<Integer>();
+      Random random = new Random(3);
+      int count = 0;
+      while (count < Chars) {
+        String name = LocalNames[random.nextInt(LocalNames.length)];
+        int[] cps = name.codePoints().toArray();
+        for (int i = 0; i < cps.length && count < Chars; ++i) {
+          this.codePoints[count++] = cps[i];
+        }
+        ends.add(count);
+      }
+      this.nameEnds = new int[ends.size()];
+      for (int i = 0; i < this.nameEnds.length; ++i) {
+        this.nameEnds[i] = ends.get(i);
+      }
+    }
+
+    /**
+     * Gets the number of code points, including values outside the Unicode
+     * range, for which a bitmap lookup and its range chain disagree.
+     * @return The number of disagreements; 0 if the two are equivalent.
+     */
+    public static int countMismatches() {
+      int mismatches = 0;
+      for (int ch = -1; ch <= 0x110000; ++ch) {
+        if (TurtleParser.isNameChar(ch) != TurtleParser.inNameCharRanges(ch)) {
+          ++mismatches;
+        }
+        if (TurtleParser.isNameStartChar(ch) !=
+            TurtleParser.inNameStartCharRanges(ch)) {
+          ++mismatches;
+        }
+        if (TurtleParser.isNameStartCharU(ch) !=
+            TurtleParser.inNameStartCharURanges(ch)) {
+          ++mismatches;
+        }
+      }
+      return mismatches;
+    }
+
+    /**
+     * Checks every character with the range chain for name characters.
+     * @return The number of name characters.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Chars)
+    public int rangeChains() {
+      int allowed = 0;
+      for (int ch : this.codePoints) {
+        if (TurtleParser.inNameCharRanges(ch)) {
+          ++allowed;
+        }
+      }
+      return allowed;
+    }
+
+    /**
+     * Checks every character with the bitmap for name characters.
+     * @return The number of name characters.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Chars)
+    public int bitmaps() {
+      int allowed = 0;
+      for (int ch : this.codePoints) {
+        if (TurtleParser.isNameChar(ch)) {
+          ++allowed;
+        }
+      }
+      return allowed;
+    }
+
+    /**
+     * Checks each name with the range chains, the first character as a start
+     * character and the rest as name characters.
+     * @return The number of characters allowed where they occur.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Chars)
+    public int rangeChainsByName() {
+      int[] cps = this.codePoints;
+      int allowed = 0;
+      int start = 0;
+      for (int end : this.nameEnds) {
+        if (TurtleParser.inNameStartCharRanges(cps[start])) {
+          ++allowed;
+        }
+        for (int i = start + 1; i < end; ++i) {
+          if (TurtleParser.inNameCharRanges(cps[i])) {
+            ++allowed;
+          }
+        }
+        start = end;
+      }
+      return allowed;
+    }
+
+    /**
+     * Checks each name with the bitmaps, the first character as a start
+     * character and the rest as name characters.
+     * @return The number of characters allowed where they occur.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Chars)
+    public int bitmapsByName() {
+      int[] cps = this.codePoints;
+      int allowed = 0;
+      int start = 0;
+      for (int end : this.nameEnds) {
+        if (TurtleParser.isNameStartChar(cps[start])) {
+          ++allowed;
+        }
+        for (int i = start + 1; i < end; ++i) {
+          if (TurtleParser.isNameChar(cps[i])) {
+            ++allowed;
+          }
+        }
+        start = end;
+      }
+      return allowed;
+    }
+  }
@@ -0,0 +1,184 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+    /**
+     * Measures set-heavy work on parsed triples with the cached hash codes of
+     * RDFTriple and RDFTerm, and with hash codes recomputed on every call as
+     * they were before the cache. Both sides put the triples in the same kind
+     * of wrapper, which differs only in how it gets the hash code, so the
+     * wrapper's cost cancels out.
+     */
+  @State(Scope.Benchmark)
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+  public class TripleHashBenchmark {
+    /**
+     * The number of triples in the parsed document, including duplicates.
+     */
+    @Param({ "400000" })
+    public int triples;
+
+    // The parsed triples, and equal copies of them as if parsed
+    // from another document
+    private List<Key> graph;
+    private List<Key> otherGraph;
+    private List<Key> uncachedGraph;
+    private List<Key> uncachedOtherGraph;
+    private Set<Key> graphSet;
+    private Set<Key> uncachedGraphSet;
+
+    private static class Key {
+      protected final RDFTriple triple;
+
+      public Key(RDFTriple triple) {
+        this.triple = triple;
+      }
+
+      @Override public boolean equals(Object obj) {
+        return (obj instanceof Key) && this.triple.equals(((Key)obj).triple);
+      }
+
+      @Override public int hashCode() {
+        return this.triple.hashCode();
+      }
+    }
+
+    private static final class UncachedKey extends Key {
+      public UncachedKey(RDFTriple triple) {
+        super(triple);
+      }
+
+      @Override public int hashCode() {
+        return this.triple.computeHashCode();
+      }
+    }
+
+    /**
+     * Parses an N-Triples document with repeated subjects, predicates and
+     * language-tagged literals, and a few duplicate triples.
+     */
+    @Setup
+    public void setUp() {
+      StringBuilder builder = new StringBuilder();
+      Random random = new Random(1);
+      for (int i = 0; i < this.triples; ++i) {
+        builder.append("<http://example.org/resource/subject")
+          .append(random.nextInt(60000))
+          .append("> <http://example.org/vocab/property")
+          .append(random.nextInt(20))
+          .append("> \"a literal value of moderate length ")
+          .append(random.nextInt(50))
+          .append("\"@en .\n");
+      }
+      List<RDFTriple> parsed = new NTriplesParser(builder.toString())
+        .ParseList();
+      this.graph = new ArrayList<Key>();
+      this.otherGraph = new ArrayList<Key>();
+      this.uncachedGraph = new ArrayList<Key>();
+      this.uncachedOtherGraph = new ArrayList<Key>();
+      for (RDFTriple triple : parsed) {
+        // Separate copies for each side, so that neither side's
+        // cached hash codes are seen by the other
+        this.graph.add(new Key(copy(triple)));
+        this.otherGraph.add(new Key(copy(triple)));
+        this.uncachedGraph.add(new UncachedKey(copy(triple)));
+        this.uncachedOtherGraph.add(new UncachedKey(copy(triple)));
+      }
+      this.graphSet = new HashSet<Key>(this.graph);
+      this.uncachedGraphSet = new HashSet<Key>(this.uncachedGraph);
+    }
+
+    private static RDFTriple copy(RDFTriple triple) {
+      return new RDFTriple(
+  copy(triple.getSubject()),
+  copy(triple.getPredicate()),
+  copy(triple.getObject()));
+    }
+
+    private static RDFTerm copy(RDFTerm term) {
+      switch (term.getKind()) {
+        case RDFTerm.BLANK:
+          return RDFTerm.fromBlankNode(term.getValue());
+        case RDFTerm.IRI:
+          return RDFTerm.fromIRI(term.getValue());
+        case RDFTerm.LANGSTRING:
+          return RDFTerm.fromLangString(
+  term.getValue(),
+  term.getTypeOrLanguage());
+        default:
+          return RDFTerm.fromTypedString(
+  term.getValue(),
+  term.getTypeOrLanguage());
+      }
+    }
+
+    private static int dedup(List<Key> graph) {
+      return new HashSet<Key>(graph).size();
+    }
+
+    private static int merge(Set<Key> graphSet, List<Key> otherGraph) {
+      Set<Key> merged = new HashSet<Key>(graphSet);
+      merged.addAll(otherGraph);
+      int found = 0;
+      for (Key key : otherGraph) {
+        if (graphSet.contains(key)) {
+          ++found;
+        }
+      }
+      return merged.size() + found;
+    }
+
+    /**
+     * Removes duplicate triples by adding them to a hash set, using cached
+     * hash codes.
+     * @return The number of distinct triples.
+     */
+    @Benchmark
+    public int dedupCached() {
+      return dedup(this.graph);
+    }
+
+    /**
+     * Removes duplicate triples by adding them to a hash set, recomputing
+     * hash codes.
+     * @return The number of distinct triples.
+     */
+    @Benchmark
+    public int dedupRecomputed() {
+      return dedup(this.uncachedGraph);
+    }
+
+    /**
+     * Merges a second copy of the graph into the set of its triples, then
+     * looks up each triple of the copy, using cached hash codes.
+     * @return The merged set's size plus the number of triples found.
+     */
+    @Benchmark
+    public int mergeCached() {
+      return merge(this.graphSet, this.otherGraph);
+    }
+
+    /**
+     * Merges a second copy of the graph into the set of its triples, then
+     * looks up each triple of the copy, recomputing hash codes.
+     * @return The merged set's size plus the number of triples found.
+     */
+    @Benchmark
+    public int mergeRecomputed() {
+      return merge(this.uncachedGraphSet, this.uncachedOtherGraph);
+    }
+  }
@@ -20,4 +20,45 @@ import java.util.*;
      * @return The return value is not documented yet.
      */
    Set<RDFTriple> Parse();
+
+    /**
+     * Parses the input into a list of triples in document order, without
+     * removing duplicate triples.
+     * @return A list of the triples in the input.
+     */
+   List<RDFTriple> ParseList();
+
+    /**
+     * Parses the input and passes each triple to the given handler as soon as
+     * it is read, instead of collecting the triples in a set. Duplicate
+     * triples are passed to the handler as many times as they appear.
+     * @param handler The handler that receives the triples.
+     * @throws java.lang.NullPointerException The parameter {@code handler} is
+     * null.
+     */
+   void Parse(ITripleHandler handler);
+
+    /**
+     * Parses the input and passes each triple to the given handler as the IDs
+     * its terms have in the given dictionary, instead of as RDFTriple
+     * objects. Terms not yet in the dictionary are added to it, so that
+     * the dictionary can map the IDs back to terms once parsing ends.
+     * @param dictionary The dictionary that assigns IDs to terms.
+     * @param handler The handler that receives the triples.
+     * @throws java.lang.NullPointerException The parameter {@code dictionary}
+     * or {@code handler} is null.
+     */
+   void Parse(RDFTermDictionary dictionary, ITripleIdHandler handler);
+
+    /**
+     * Parses the next statement in the input and passes the triples it
+     * contains to the given handler, so that a document can be read one
+     * statement at a time. See also {@link RDFTripleCursor}.
+     * @param handler The handler that receives the statement's triples.
+     * @return {@code true} if a statement was read; {@code false} if the end
+     * of the input was reached.
+     * @throws java.lang.NullPointerException The parameter {@code handler} is
+     * null.
+     */
+   boolean ParseStatement(ITripleHandler handler);
 }
@@ -0,0 +1,22 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * Receives RDF triples as a parser produces them, so that a document need
+     * not be held in memory in its entirety.
+     */
+  public interface ITripleHandler {
+    /**
+     * Called once for each triple the parser reads, in the order the triples
+     * appear in the document.
+     * @param triple The triple just read.
+     */
+   void handleTriple(RDFTriple triple);
+}
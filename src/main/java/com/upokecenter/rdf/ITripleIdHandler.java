@@ -0,0 +1,25 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * Receives RDF triples as a parser produces them, with each term given as
+     * its ID in an {@link RDFTermDictionary}. No RDFTriple objects are
+     * created for triples passed to this interface.
+     */
+  public interface ITripleIdHandler {
+    /**
+     * Called once for each triple the parser reads, in the order the triples
+     * appear in the document.
+     * @param subject The ID of the triple's subject.
+     * @param predicate The ID of the triple's predicate.
+     * @param objectRdf The ID of the triple's object.
+     */
+   void handleTriple(long subject, long predicate, long objectRdf);
+}
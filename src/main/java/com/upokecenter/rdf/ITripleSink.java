@@ -0,0 +1,25 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * Receives the three terms of each triple a parser reads, without them
+     * being wrapped in an RDFTriple object. Adapters from this interface to
+     * the public handler interfaces decide whether a triple object is
+     * allocated at all.
+     */
+  interface ITripleSink {
+    /**
+     * Called once for each triple the parser reads.
+     * @param subject The triple's subject.
+     * @param predicate The triple's predicate.
+     * @param objectRdf The triple's object.
+     */
+   void handleTriple(RDFTerm subject, RDFTerm predicate, RDFTerm objectRdf);
+}
@@ -8,7 +8,12 @@ If you like this, you should donate to Peter O.
 at: http://peteroupc.github.io/
 */
 
+  import java.io.*;
+  import java.nio.*;
+  import java.nio.channels.*;
+  import java.nio.charset.*;
   import java.util.*;
+  import java.util.stream.*;
 
   import com.upokecenter.util.*;
   import com.upokecenter.text.*;
@@ -29,7 +34,26 @@ at: http://peteroupc.github.io/
 
     private Map<String, RDFTerm> bnodeLabels;
 
-    private StackableCharacterInput input;
+    private IMarkableCharacterInput input;
+    private RDFTermTable termTable = new RDFTermTable();
+
+    // Set only when reading from a byte stream; used for
+    // reading runs of characters directly from its buffer
+    private Utf8CharacterInput byteInput;
+
+    // ASCII characters that can be copied in a run, with no
+    // further checks, in IRIs, string literals, and blank node labels
+    private static final AsciiCharSet IriRunChars =
+      new AsciiCharSet(0x21, 0x7e, "<>\"{}|^`\\:");
+
+    private static final AsciiCharSet IriSliceChars =
+      new AsciiCharSet(0x21, 0x7e, "<>\"{}|^`\\");
+
+    private static final AsciiCharSet StringRunChars =
+      new AsciiCharSet(0x20, 0x7e, "\"\\");
+
+    private static final AsciiCharSet LabelRunChars =
+      new AsciiCharSet(0x30, 0x7a, ":;<=>?@[\\]^_`");
 
     /**
      * Initializes a new instance of the {@link com.upokecenter.Rdf.getNTriplesParser()}
@@ -41,13 +65,27 @@ at: http://peteroupc.github.io/
       if (stream == null) {
         throw new NullPointerException("stream");
       }
-      this.input = new StackableCharacterInput(
-          Encodings.GetDecoderInput(
-  Encodings.GetEncoding("us-ascii", true),
-  stream));
+      this.byteInput = new Utf8CharacterInput(stream, 0, true);
+      this.input = this.byteInput;
       this.bnodeLabels = new HashMap<String, RDFTerm>();
     }
 
+    /**
+     * Initializes a new instance of the {@link NTriplesParser} class that reads
+     * a file through memory-mapped windows instead of a stream, starting at
+     * the channel's current position. The bytes of each window are copied in
+     * bulk into the parser's decoding buffer rather than decoded in place.
+     * @param channel A file channel open for reading, such as one returned by
+     * {@code FileChannel.open(path)}. It must stay open while the parser
+     * is used.
+     * @throws java.lang.NullPointerException The parameter {@code channel} is
+     * null.
+     * @throws java.io.IOException An I/O error occurred.
+     */
+    public NTriplesParser(FileChannel channel) throws IOException {
+ this(new MappedFileByteReader(channel));
+    }
+
     /**
      * Initializes a new instance of the {@link com.upokecenter.Rdf.getNTriplesParser()}
      * class.
@@ -58,11 +96,150 @@ at: http://peteroupc.github.io/
       if (str == null) {
         throw new NullPointerException("stream");
       }
-      this.input = new StackableCharacterInput(
+      this.input = new RingBufferCharacterInput(
           Encodings.StringToInput(str));
       this.bnodeLabels = new HashMap<String, RDFTerm>();
     }
 
+    /**
+     * Initializes a new instance of the {@link NTriplesParser} class that reads
+     * from an already decoded character input.
+     * @param input A markable character input.
+     */
+    NTriplesParser(IMarkableCharacterInput input) {
+      if (input == null) {
+        throw new NullPointerException("input");
+      }
+      this.input = input;
+      this.bnodeLabels = new HashMap<String, RDFTerm>();
+    }
+
+    /**
+     * Creates a stream of the triples in an N-Triples document. If the stream
+     * is parallel, the document is split at line breaks and the parts are
+     * parsed on separate threads; in that case, triples are still
+     * delivered in document order to ordered terminal operations.
+     * @param bytes A byte array containing an N-Triples document.
+     * @param parallel If true, returns a parallel stream.
+     * @return A stream of the document's triples. Duplicate triples are not
+     * removed.
+     * @throws java.lang.NullPointerException The parameter {@code bytes} is
+     * null.
+     */
+    public static Stream<RDFTriple> ParseStream(byte[] bytes, boolean parallel) {
+      if (bytes == null) {
+        throw new NullPointerException("bytes");
+      }
+      return ParseStream(ByteBuffer.wrap(bytes), parallel);
+    }
+
+    /**
+     * Creates a stream of the triples in an N-Triples document held in a byte
+     * buffer, such as a memory-mapped file. If the stream is parallel, the
+     * document is split at line breaks and the parts are parsed on separate
+     * threads.
+     * @param bytes A byte buffer whose remaining bytes are an N-Triples
+     * document. The buffer's position and limit are not changed.
+     * @param parallel If true, returns a parallel stream.
+     * @return A stream of the document's triples. Duplicate triples are not
+     * removed.
+     * @throws java.lang.NullPointerException The parameter {@code bytes} is
+     * null.
+     */
+    public static Stream<RDFTriple> ParseStream(
+  ByteBuffer bytes,
+  boolean parallel) {
+      if (bytes == null) {
+        throw new NullPointerException("bytes");
+      }
+      return ParseStream(bytes, parallel, new RDFTermTable());
+    }
+
+    private static Stream<RDFTriple> ParseStream(
+  ByteBuffer bytes,
+  boolean parallel,
+  RDFTermTable termTable) {
+      return StreamSupport.stream(
+  new NTriplesSpliterator(
+  bytes,
+  bytes.position(),
+  bytes.limit(),
+  termTable),
+  parallel);
+    }
+
+    // Largest part of a file mapped at once by ParseStream(FileChannel, ...)
+    private static final int MaxMappedPart = 1 << 30;
+
+    /**
+     * Creates a stream of the triples in an N-Triples file, from the channel's
+     * current position to the end of the file. The file is mapped into
+     * memory rather than read through a stream, and its bytes are copied in
+     * bulk from the mapping into each parser's decoding buffer; files too
+     * large to map at once are mapped in several parts that end at line
+     * breaks. If the
+     * stream is parallel, the parts are further split at line breaks and
+     * parsed on separate threads.
+     * @param channel A file channel open for reading. It must stay open until
+     * the stream is consumed.
+     * @param parallel If true, returns a parallel stream.
+     * @return A stream of the document's triples. Duplicate triples are not
+     * removed.
+     * @throws java.lang.NullPointerException The parameter {@code channel} is
+     * null.
+     * @throws java.io.IOException An I/O error occurred, or a line is too long
+     * to map.
+     */
+    public static Stream<RDFTriple> ParseStream(
+  FileChannel channel,
+  boolean parallel) throws IOException {
+      if (channel == null) {
+        throw new NullPointerException("channel");
+      }
+      List<Stream<RDFTriple>> parts = new ArrayList<Stream<RDFTriple>>();
+      RDFTermTable termTable = new RDFTermTable();
+      long position = channel.position();
+      long size = channel.size();
+      while (position < size) {
+        long length = Math.min(MaxMappedPart, size - position);
+        MappedByteBuffer part = channel.map(
+  FileChannel.MapMode.READ_ONLY,
+  position,
+  length);
+        int end = (int)length;
+        if (position + length < size) {
+          // End this part just after its last line feed
+          while (end > 0 && part.get(end - 1) != 0x0a) {
+            --end;
+          }
+          if (end == 0) {
+            throw new ParserException();
+          }
+          part.limit(end);
+        }
+        parts.add(ParseStream(part, parallel, termTable));
+        position += end;
+      }
+      return concatStreams(parts, 0, parts.size());
+    }
+
+    private static Stream<RDFTriple> concatStreams(
+  List<Stream<RDFTriple>> parts,
+  int start,
+  int end) {
+      if (start == end) {
+        return Stream.empty();
+      }
+      if (end - start == 1) {
+        return parts.get(start);
+      }
+      // Concatenate as a balanced tree so parallel splits stay shallow
+      int mid = start + ((end - start) >> 1);
+      return Stream.concat(
+  concatStreams(parts, start, mid),
+  concatStreams(parts, mid, end));
+    }
+
     private void endOfLine(int ch) {
       if (ch == 0x0a) {
         return;
@@ -76,15 +253,48 @@ at: http://peteroupc.github.io/
       }
     }
 
-    private RDFTerm finishStringLiteral(String str) {
+    /**
+     * Gets the table of canonical terms this parser uses for the IRIs, data
+     * types, and language tags it reads.
+     * @return The term table, or null if terms are not interned.
+     */
+    public RDFTermTable getTermTable() {
+      return this.termTable;
+    }
+
+    /**
+     * Sets the table of canonical terms this parser uses for the IRIs, data
+     * types, and language tags it reads. By default, each parser has its
+     * own table; parsers reading similar documents can share one.
+     * @param table A term table, or null to not intern terms. Without a
+     * table, IRIs read as slices of the input stay unconverted until
+     * their values are requested.
+     */
+    public void setTermTable(RDFTermTable table) {
+      this.termTable = table;
+    }
+
+    private RDFTerm intern(RDFTerm term) {
+      return (this.termTable == null) ? term : this.termTable.intern(term);
+    }
+
+    private String intern(String str) {
+      return (this.termTable == null) ? str : this.termTable.intern(str);
+    }
+
+    private RDFTerm finishStringLiteral(CharSequence str) {
       int mark = this.input.setHardMark();
       int ch = this.input.ReadChar();
       if (ch == '@') {
-        return RDFTerm.fromLangString(str, this.readLanguageTag());
+        return RDFTerm.fromLangString(
+  str,
+  this.intern(this.readLanguageTag()));
       } else if (ch == '^' && this.input.ReadChar() == '^') {
         ch = this.input.ReadChar();
         if (ch == '<') {
-          return RDFTerm.fromTypedString(str, this.readIriReference());
+          return RDFTerm.fromTypedString(
+  str,
+  this.intern(this.readIriReference()));
         } else {
           throw new ParserException();
         }
@@ -100,12 +310,83 @@ at: http://peteroupc.github.io/
      */
     public Set<RDFTriple> Parse() {
       Set<RDFTriple> rdf = new HashSet<RDFTriple>();
+      this.Parse(new TripleCollector(rdf));
+      return rdf;
+    }
+
+    /**
+     * Parses the input into a list of triples in document order. Unlike {@code
+     * Parse()}, duplicate triples are kept, which avoids hashing every
+     * triple and is useful when the input is known to be free of
+     * duplicates or is deduplicated later.
+     * @return A list of the triples in the input.
+     */
+    public List<RDFTriple> ParseList() {
+      List<RDFTriple> triples = new ArrayList<RDFTriple>();
+      this.Parse(new TripleCollector(triples));
+      return triples;
+    }
+
+    /**
+     * Parses the input and passes each triple to the given handler as soon as
+     * it is read.
+     * @param handler The handler that receives the triples.
+     * @throws java.lang.NullPointerException The parameter {@code handler} is
+     * null.
+     */
+    public void Parse(ITripleHandler handler) {
+      ITripleSink sink = new TripleHandlerSink(handler);
+      while (this.parseStatement(sink)) {
+      }
+    }
+
+    /**
+     * Parses the input and passes each triple to the given handler as the IDs
+     * its terms have in the given dictionary, adding terms to the
+     * dictionary as needed. No RDFTriple objects are created.
+     * @param dictionary The dictionary that assigns IDs to terms.
+     * @param handler The handler that receives the triples.
+     * @throws java.lang.NullPointerException The parameter {@code dictionary}
+     * or {@code handler} is null.
+     */
+    public void Parse(RDFTermDictionary dictionary, ITripleIdHandler handler) {
+      ITripleSink sink = new TripleIdSink(dictionary, handler);
+      while (this.parseStatement(sink)) {
+      }
+    }
+
+    /**
+     * Reads up to and including the next triple in the input, skipping blank
+     * lines and comments, and passes that triple to the given handler.
+     * @param handler The handler that receives the triple.
+     * @return {@code true} if a triple was read; {@code false} if the end of
+     * the input was reached.
+     * @throws java.lang.NullPointerException The parameter {@code handler} is
+     * null.
+     */
+    public boolean ParseStatement(ITripleHandler handler) {
+      return this.parseStatement(new TripleHandlerSink(handler));
+    }
+
+    private boolean parseStatement(ITripleSink sink) {
+      try {
+        return this.readStatement(sink);
+      } catch (UncheckedIOException ex) {
+        // Thrown by the byte input on a non-ASCII byte
+        if (ex.getCause() instanceof CharacterCodingException) {
+          throw new ParserException("Non-ASCII byte in N-Triples input");
+        }
+        throw ex;
+      }
+    }
+
+    private boolean readStatement(ITripleSink sink) {
       while (true) {
         this.skipWhitespace();
         this.input.setHardMark();
         int ch = this.input.ReadChar();
         if (ch < 0) {
-          return rdf;
+          return false;
         }
         if (ch == '#') {
           while (true) {
@@ -121,7 +402,8 @@ at: http://peteroupc.github.io/
           this.endOfLine(ch);
         } else {
           this.input.moveBack(1);
-          rdf.Add(this.readTriples());
+          this.readTriples(sink);
+          return true;
         }
       }
     }
@@ -143,6 +425,9 @@ at: http://peteroupc.github.io/
       }
       this.input.setSoftMark();
       while (true) {
+        if (this.byteInput != null) {
+          this.byteInput.appendAsciiRun(ilist, LabelRunChars);
+        }
         int ch = this.input.ReadChar();
         if ((ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z') ||
             (ch >= '0' && ch <= '9')) {
@@ -163,11 +448,29 @@ at: http://peteroupc.github.io/
       }
     }
 
+    // Reads an IRI after its opening angle bracket. An IRI with no escapes
+    // refers to the input itself instead of being copied.
+    private RDFTerm readIriTerm() {
+      if (this.byteInput != null) {
+        int start = this.input.setSoftMark();
+        AsciiSlice iri = this.byteInput.readAsciiSlice(IriSliceChars);
+        if (this.input.ReadChar() == '>' && iri.indexOf(':') >= 0) {
+          return RDFTerm.fromIRI(iri);
+        }
+        this.input.setMarkPosition(start);
+      }
+      return RDFTerm.fromIRI(this.readIriReference());
+    }
+
     private String readIriReference() {
       StringBuilder ilist = new StringBuilder();
       boolean haveString = false;
       boolean colon = false;
       while (true) {
+        if (this.byteInput != null &&
+            this.byteInput.appendAsciiRun(ilist, IriRunChars)) {
+          haveString = true;
+        }
         int c2 = this.input.ReadChar();
         if ((c2 <= 0x20 || c2 > 0x7e) || ((c2 & 0x7F) == c2 && "<\"{}|^`"
                 .indexOf((char)c2) >= 0)) {
@@ -277,8 +580,18 @@ at: http://peteroupc.github.io/
       if (ch < 0) {
         throw new ParserException();
       } else if (ch == '<') {
-        return RDFTerm.fromIRI(this.readIriReference());
+        return this.readIriTerm();
       } else if (acceptLiteral && (ch == '\"')) { // start of quote literal
+        if (this.byteInput != null) {
+          // Refer to a literal with no escapes in the input
+          // itself instead of copying it
+          int start = this.input.setSoftMark();
+          AsciiSlice slice = this.byteInput.readAsciiSlice(StringRunChars);
+          if (this.input.ReadChar() == ch) {
+            return this.finishStringLiteral(slice);
+          }
+          this.input.setMarkPosition(start);
+        }
         String str = this.readStringLiteral(ch);
         return this.finishStringLiteral(str);
       } else if (ch == '_') { // Blank Node Label
@@ -300,6 +613,9 @@ at: http://peteroupc.github.io/
     private String readStringLiteral(int ch) {
       StringBuilder ilist = new StringBuilder();
       while (true) {
+        if (this.byteInput != null) {
+          this.byteInput.appendAsciiRun(ilist, StringRunChars);
+        }
         int c2 = this.input.ReadChar();
         if (c2 < 0x20 || c2 > 0x7e) {
           throw new ParserException();
@@ -328,7 +644,7 @@ at: http://peteroupc.github.io/
       }
     }
 
-    private RDFTriple readTriples() {
+    private void readTriples(ITripleSink sink) {
       int mark = this.input.setHardMark();
       int ch = this.input.ReadChar();
 
@@ -340,7 +656,7 @@ at: http://peteroupc.github.io/
       if (this.input.ReadChar() != '<') {
         throw new ParserException();
       }
-      RDFTerm predicate = RDFTerm.fromIRI(this.readIriReference());
+      RDFTerm predicate = this.readIriTerm();
       if (!this.skipWhitespace()) {
         throw new ParserException();
       }
@@ -350,9 +666,11 @@ at: http://peteroupc.github.io/
         throw new ParserException();
       }
       this.skipWhitespace();
-      RDFTriple ret = new RDFTriple(subject, predicate, obj);
       this.endOfLine(this.input.ReadChar());
-      return ret;
+      sink.handleTriple(
+  this.intern(subject),
+  this.intern(predicate),
+  this.intern(obj));
     }
 
     private int readUnicodeEscape(boolean extended) {
@@ -413,17 +731,28 @@ at: http://peteroupc.github.io/
       return ch;
     }
 
+    // Gets the next character without reading it
+    private int peekChar() {
+      if (this.input instanceof IPeekableCharacterInput) {
+        return ((IPeekableCharacterInput)this.input).peekChar();
+      }
+      this.input.setSoftMark();
+      int ch = this.input.ReadChar();
+      if (ch >= 0) {
+        this.input.moveBack(1);
+      }
+      return ch;
+    }
+
     private boolean skipWhitespace() {
       boolean haveWhitespace = false;
       this.input.setSoftMark();
       while (true) {
-        int ch = this.input.ReadChar();
+        int ch = this.peekChar();
         if (ch != 0x09 && ch != 0x20) {
-          if (ch >= 0) {
-            this.input.moveBack(1);
-          }
           return haveWhitespace;
         }
+        this.input.ReadChar();
         haveWhitespace = true;
       }
     }
@@ -0,0 +1,124 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.nio.*;
+import java.util.*;
+import java.util.function.*;
+
+    /**
+     * Spliterator over the triples of an N-Triples document held in a byte
+     * buffer. Since N-Triples has one triple per line, the document can be
+     * split at any line break and each part parsed independently, which lets
+     * a parallel stream parse the parts on separate threads.
+     */
+  final class NTriplesSpliterator implements Spliterator<RDFTriple> {
+    // Parts smaller than this are not split further
+    private static final int MinSplitSize = 1 << 16;
+
+    private final ByteBuffer data;
+    private int start;
+    private final int end;
+    private final RDFTermTable termTable;
+    private RDFTripleCursor cursor;
+
+    /**
+     * Initializes a new instance of the {@link NTriplesSpliterator} class.
+     * @param data A byte buffer containing the document. Its position and
+     * limit are not changed.
+     * @param start Index of the first byte of the part to parse.
+     * @param end Index just past the last byte of the part to parse.
+     * @param termTable The term table shared by the parsers of all parts.
+     */
+    public NTriplesSpliterator(
+  ByteBuffer data,
+  int start,
+  int end,
+  RDFTermTable termTable) {
+      this.data = data;
+      this.start = start;
+      this.end = end;
+      this.termTable = termTable;
+    }
+
+    private NTriplesParser newParser() {
+      ByteBuffer part = this.data.duplicate();
+      part.limit(this.end);
+      part.position(this.start);
+      NTriplesParser parser = new NTriplesParser(new ByteBufferReader(part));
+      parser.setTermTable(this.termTable);
+      return parser;
+    }
+
+    public boolean tryAdvance(Consumer<? super RDFTriple> action) {
+      if (action == null) {
+        throw new NullPointerException("action");
+      }
+      if (this.cursor == null) {
+        this.cursor = new RDFTripleCursor(this.newParser());
+      }
+      if (!this.cursor.hasNext()) {
+        return false;
+      }
+      action.accept(this.cursor.next());
+      return true;
+    }
+
+    public void forEachRemaining(final Consumer<? super RDFTriple> action) {
+      if (action == null) {
+        throw new NullPointerException("action");
+      }
+      if (this.cursor != null) {
+        while (this.cursor.hasNext()) {
+          action.accept(this.cursor.next());
+        }
+        return;
+      }
+      this.newParser().Parse(new ITripleHandler() {
+        public void handleTriple(RDFTriple triple) {
+          action.accept(triple);
+        }
+      });
+      this.start = this.end;
+    }
+
+    public Spliterator<RDFTriple> trySplit() {
+      if (this.cursor != null || this.end - this.start < MinSplitSize) {
+        return null;
+      }
+      // Split just after the first line feed at or past the midpoint
+      int index = this.start + ((this.end - this.start) >> 1);
+      while (index < this.end && this.data.get(index) != 0x0a) {
+        ++index;
+      }
+      if (index + 1 >= this.end) {
+        return null;
+      }
+      NTriplesSpliterator prefix = new NTriplesSpliterator(
+        this.data,
+        this.start,
+        index + 1,
+        this.termTable);
+      this.start = index + 1;
+      return prefix;
+    }
+
+    /**
+     * Gets the number of bytes not yet parsed, which is used as an estimate of
+     * the number of remaining triples.
+     * @return The estimated size.
+     */
+    public long estimateSize() {
+      return this.end - this.start;
+    }
+
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+  }
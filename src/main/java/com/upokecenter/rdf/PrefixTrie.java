@@ -0,0 +1,127 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.*;
+
+    /**
+     * A trie of the namespace prefixes declared in a Turtle document, which
+     * a parser walks one character at a time as it reads a prefixed name,
+     * so that the prefix is never built as a string. Each node whose path
+     * is a declared prefix also caches the terms for local names recently
+     * used with that prefix.
+     */
+  final class PrefixTrie {
+    // Maximum number of local names cached for each prefix
+    private static final int MaxCachedTerms = 1024;
+
+    /**
+     * A node of a prefix trie.
+     */
+    static final class Node {
+      private Node[] asciiChildren;
+      private HashMap<Integer, Node> otherChildren;
+      private String namespace;
+      private HashMap<String, RDFTerm> terms;
+
+      /**
+       * Gets the node reached from this one by the given character.
+       * @param ch A Unicode code point.
+       * @return The child node, or null if no prefix continues with that
+       * character.
+       */
+      public Node getChild(int ch) {
+        if (ch < 0x80) {
+          return (this.asciiChildren == null || ch < 0) ? null :
+            this.asciiChildren[ch];
+        }
+        return (this.otherChildren == null) ? null :
+          this.otherChildren.get(ch);
+      }
+
+      private Node addChild(int ch) {
+        Node child = this.getChild(ch);
+        if (child == null) {
+          child = new Node();
+          if (ch < 0x80) {
+            if (this.asciiChildren == null) {
+              this.asciiChildren = new Node[0x80];
+            }
+            this.asciiChildren[ch] = child;
+          } else {
+            if (this.otherChildren == null) {
+              this.otherChildren = new HashMap<Integer, Node>();
+            }
+            this.otherChildren.put(ch, child);
+          }
+        }
+        return child;
+      }
+
+      /**
+       * Gets the namespace IRI of the prefix ending at this node.
+       * @return The namespace IRI, or null if no prefix ends at this node.
+       */
+      public String getNamespace() {
+        return this.namespace;
+      }
+
+      /**
+       * Gets the cached term for a local name with this node's prefix.
+       * @param localName A local name.
+       * @return The cached term, or null if none is cached.
+       */
+      public RDFTerm getTerm(String localName) {
+        return (this.terms == null) ? null : this.terms.get(localName);
+      }
+
+      /**
+       * Caches the term for a local name with this node's prefix.
+       * @param localName A local name.
+       * @param term The term the prefixed name stands for.
+       */
+      public void putTerm(String localName, RDFTerm term) {
+        if (this.terms == null) {
+          this.terms = new HashMap<String, RDFTerm>();
+        } else if (this.terms.size() >= MaxCachedTerms) {
+          // Start over rather than track which names are used most
+          this.terms.clear();
+        }
+        this.terms.put(localName, term);
+      }
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Gets the node for the empty prefix, from which all prefixes are walked.
+     * @return The root node.
+     */
+    public Node getRoot() {
+      return this.root;
+    }
+
+    /**
+     * Declares a prefix, or changes the namespace IRI of a declared prefix.
+     * @param prefix The prefix, without the colon.
+     * @param namespace The namespace IRI.
+     */
+    public void put(String prefix, String namespace) {
+      Node node = this.root;
+      for (int i = 0; i < prefix.length(); ++i) {
+        int ch = prefix.codePointAt(i);
+        if (ch >= 0x10000) {
+          ++i;
+        }
+        node = node.addChild(ch);
+      }
+      node.namespace = namespace;
+      node.terms = null;
+    }
+  }
@@ -12,94 +12,37 @@ import java.util.*;
 
   final class RDFInternal {
     /**
-     *
+     * Determines whether a blank node label read from a document can be kept
+     * as is. Labels of the form "b" followed by one or more digits are
+     * reserved for blank nodes the parsers generate, and labels that aren't
+     * valid under N-Triples are also replaced, so that labels never collide
+     * no matter where in the document they appear.
+     * @param label A blank node label read from a document.
+     * @return {@code true} if the label can be kept; otherwise, {@code
+     * false}.
      */
-  static void replaceBlankNodes(
-  Set<RDFTriple> triples,
-      Map<String, RDFTerm> bnodeLabels) {
-    if (bnodeLabels.size() == 0) {
- return;
-}
-    Map<String, RDFTerm> newBlankNodes = new
-      HashMap<String, RDFTerm>();
-    List<RDFTriple[]> changedTriples = new ArrayList<RDFTriple[]>();
-    int[] nodeindex = new int[] { 0 };
-     for (RDFTriple triple : triples) {
-      boolean changed = false;
-      RDFTerm subj = triple.getSubject();
-      if (subj.getKind() == RDFTerm.BLANK) {
-        String oldname = subj.getValue();
-        String newname = suggestBlankNodeName(oldname, nodeindex, bnodeLabels);
-        if (!newname.equals(oldname)) {
-            RDFTerm newNode = newBlankNodes.containsKey(oldname) ?
-                    newBlankNodes.get(oldname) : null;
-          if (newNode == null) {
-            newNode = RDFTerm.fromBlankNode(newname);
-            bnodeLabels.put(newname, newNode);
-            newBlankNodes.put(oldname, newNode);
-          }
-          subj = newNode;
-          changed = true;
-        }
-      }
-      RDFTerm obj = triple.getObject();
-      if (obj.getKind() == RDFTerm.BLANK) {
-        String oldname = obj.getValue();
-        String newname = suggestBlankNodeName(oldname, nodeindex, bnodeLabels);
-        if (!newname.equals(oldname)) {
-                    RDFTerm newNode = newBlankNodes.containsKey(oldname) ?
-                    newBlankNodes.get(oldname) : null;
-          if (newNode == null) {
-            newNode = RDFTerm.fromBlankNode(newname);
-            bnodeLabels.put(newname, newNode);
-            newBlankNodes.put(oldname, newNode);
-          }
-          obj = newNode;
-          changed = true;
-        }
-      }
-      if (changed) {
-        RDFTriple[] newTriple = new RDFTriple[] { triple,
-            new RDFTriple(subj, triple.getPredicate(), obj)
-        };
-        changedTriples.add(newTriple);
-      }
-    }
-     for (RDFTriple[] triple : changedTriples) {
-      triples.Remove(triple[0]);
-      triples.Add(triple[1]);
+  static boolean isPreservedBlankNodeName(String label) {
+    int length = label.length();
+    if (length == 0) {
+      return false;
     }
-  }
-
-  private static String suggestBlankNodeName(
-      String node, int[] nodeindex, Map<String, RDFTerm> bnodeLabels) {
-    boolean validnode = node.length() > 0;
+    boolean reserved = label.charAt(0) == 'b' && length > 1;
     // Check if the blank node label is valid
     // under N-Triples
-    for (int i = 0; i < node.length(); ++i) {
-      int c = node.charAt(i);
+    for (int i = 0; i < length; ++i) {
+      int c = label.charAt(i);
       if (i == 0 && !((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))) {
-        validnode = false;
-        break;
+        return false;
       }
-      if (i >= 0 && !((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+      if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
           (c >= 'a' && c <= 'z'))) {
-        validnode = false;
-        break;
+        return false;
+      }
+      if (i > 0 && (c < '0' || c > '9')) {
+        reserved = false;
       }
     }
-    if (validnode) {
- return node;
-}
-    while (true) {
-      // Generate a new blank node label,
-      // and ensure it's unique
-      node = "b" + (nodeindex[0]).toString();
-      if (!bnodeLabels.containsKey(node)) {
- return node;
-}
-      ++nodeindex[0];
-    }
+    return !reserved;
   }
 
   private RDFInternal() {
@@ -0,0 +1,304 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.nio.*;
+import java.util.*;
+
+import com.upokecenter.text.*;
+
+    /**
+     * A parser that is given a document's bytes piece by piece, rather than
+     * reading them from a stream, so that it never blocks waiting for input.
+     * Each call to {@code feed} parses every statement that is complete so
+     * far and passes its triples to the handler; bytes of an incomplete
+     * statement are kept until the rest of it arrives. This lets a single
+     * thread drive many parsers, such as one per network connection.
+     */
+  public final class RDFPushParser {
+    private static final int StateNormal = 0;
+    private static final int StateIri = 1;
+    private static final int StateShortString = 2;
+    private static final int StateLongString = 3;
+    private static final int StateComment = 4;
+
+    private final IRDFParser parser;
+    private final StackableCharacterInput input;
+    private final ITripleHandler handler;
+    private final ICharacterEncoding encoding;
+    private final boolean turtle;
+    private byte[] pending;
+    private int pendingLength;
+    private boolean finished;
+    private boolean failed;
+
+    // State of the statement boundary scanner, which
+    // resumes where it left off on the next feed
+    private int scanIndex;
+    private int scanState;
+    private int quoteChar;
+    private int quoteCount;
+    private int depth;
+    private boolean escaped;
+
+    private RDFPushParser(
+  ITripleHandler handler,
+  String baseURI,
+  boolean turtle) {
+      if (handler == null) {
+        throw new NullPointerException("handler");
+      }
+      this.input = new StackableCharacterInput(Encodings.StringToInput(""));
+      if (turtle) {
+        this.parser = new TurtleParser(this.input, baseURI);
+        this.encoding = Encodings.UTF8;
+      } else {
+        this.parser = new NTriplesParser(this.input);
+        this.encoding = Encodings.GetEncoding("us-ascii", true);
+      }
+      this.handler = handler;
+      this.turtle = turtle;
+      this.pending = new byte[64];
+    }
+
+    /**
+     * Creates a push parser for a Turtle document.
+     * @param handler The handler that receives the triples.
+     * @return A push parser.
+     * @throws java.lang.NullPointerException The parameter {@code handler} is
+     * null.
+     */
+    public static RDFPushParser forTurtle(ITripleHandler handler) {
+      return forTurtle(handler, "about:blank");
+    }
+
+    /**
+     * Creates a push parser for a Turtle document.
+     * @param handler The handler that receives the triples.
+     * @param baseURI The base URI of the document.
+     * @return A push parser.
+     * @throws java.lang.NullPointerException The parameter {@code handler} or
+     * {@code baseURI} is null.
+     */
+    public static RDFPushParser forTurtle(
+  ITripleHandler handler,
+  String baseURI) {
+      if (baseURI == null) {
+        throw new NullPointerException("baseURI");
+      }
+      return new RDFPushParser(handler, baseURI, true);
+    }
+
+    /**
+     * Creates a push parser for an N-Triples document.
+     * @param handler The handler that receives the triples.
+     * @return A push parser.
+     * @throws java.lang.NullPointerException The parameter {@code handler} is
+     * null.
+     */
+    public static RDFPushParser forNTriples(ITripleHandler handler) {
+      return new RDFPushParser(handler, null, false);
+    }
+
+    /**
+     * Gives the parser the next piece of the document. All statements that are
+     * complete after this piece are parsed before this method returns.
+     * @param bytes A byte buffer whose remaining bytes are the next piece of
+     * the document. Its position is advanced to its limit.
+     * @throws java.lang.NullPointerException The parameter {@code bytes} is
+     * null.
+     * @throws IllegalStateException The document was already finished, or an
+     * earlier piece failed to parse.
+     * @throws ParserException A complete statement has a syntax error.
+     */
+    public void feed(ByteBuffer bytes) {
+      if (bytes == null) {
+        throw new NullPointerException("bytes");
+      }
+      this.checkState();
+      int count = bytes.remaining();
+      if (this.pendingLength + count > this.pending.length) {
+        byte[] newPending = new byte[Math.max(
+          this.pending.length * 2,
+          this.pendingLength + count)];
+        System.arraycopy(this.pending, 0, newPending, 0, this.pendingLength);
+        this.pending = newPending;
+      }
+      bytes.get(this.pending, this.pendingLength, count);
+      this.pendingLength += count;
+      int cut = this.turtle ? this.scanTurtle() : this.scanNTriples();
+      if (cut > 0) {
+        this.parsePending(cut);
+      }
+    }
+
+    /**
+     * Parses the rest of the document after its last piece was given to
+     * {@code feed}.
+     * @throws IllegalStateException The document was already finished, or an
+     * earlier piece failed to parse.
+     * @throws ParserException The rest of the document has a syntax error.
+     */
+    public void finish() {
+      this.checkState();
+      this.finished = true;
+      this.parsePending(this.pendingLength);
+    }
+
+    private void checkState() {
+      if (this.finished) {
+        throw new IllegalStateException("The document was already finished");
+      }
+      if (this.failed) {
+        throw new IllegalStateException("The document failed to parse");
+      }
+    }
+
+    // Parses the statements in the first 'length' pending bytes,
+    // then discards those bytes
+    private void parsePending(int length) {
+      byte[] chunk = Arrays.copyOf(this.pending, length);
+      System.arraycopy(
+  this.pending,
+  length,
+  this.pending,
+  0,
+  this.pendingLength - length);
+      this.pendingLength -= length;
+      this.scanIndex -= length;
+      this.input.pushInput(
+        Encodings.GetDecoderInput(
+  this.encoding,
+  new ByteBufferReader(ByteBuffer.wrap(chunk))));
+      boolean success = false;
+      try {
+        while (this.parser.ParseStatement(this.handler)) {
+        }
+        success = true;
+      } finally {
+        if (!success) {
+          this.failed = true;
+        }
+      }
+    }
+
+    private int scanNTriples() {
+      int cut = -1;
+      int i = this.scanIndex;
+      while (i < this.pendingLength) {
+        int b = this.pending[i];
+        if (b == 0x0a) {
+          cut = i + 1;
+        } else if (b == 0x0d) {
+          if (i + 1 >= this.pendingLength) {
+            // Wait to see whether a line feed follows
+            break;
+          }
+          if (this.pending[i + 1] != 0x0a) {
+            cut = i + 1;
+          }
+        }
+        ++i;
+      }
+      this.scanIndex = i;
+      return cut;
+    }
+
+    // Finds the end of the last statement that is known to be
+    // complete, or returns -1 if there is none. A period ends a
+    // statement only outside of IRIs, strings, comments, and
+    // brackets, and only if the next character can't continue a
+    // number or prefixed name; if that character hasn't arrived
+    // yet, scanning stops until the next feed.
+    private int scanTurtle() {
+      int cut = -1;
+      int i = this.scanIndex;
+      byte[] buf = this.pending;
+      int length = this.pendingLength;
+      while (i < length) {
+        int b = buf[i] & 0xff;
+        if (this.escaped) {
+          this.escaped = false;
+        } else if (this.scanState == StateNormal) {
+          if (b == '\\') {
+            this.escaped = true;
+          } else if (b == '#') {
+            this.scanState = StateComment;
+          } else if (b == '<') {
+            this.scanState = StateIri;
+          } else if (b == '"' || b == '\'') {
+            if (i + 2 >= length) {
+              break;
+            }
+            if (buf[i + 1] == b && buf[i + 2] == b) {
+              this.scanState = StateLongString;
+              this.quoteChar = b;
+              this.quoteCount = 0;
+              i += 3;
+              continue;
+            }
+            if (buf[i + 1] == b) {
+              // Empty string
+              i += 2;
+              continue;
+            }
+            this.scanState = StateShortString;
+            this.quoteChar = b;
+          } else if (b == '[' || b == '(') {
+            ++this.depth;
+          } else if (b == ']' || b == ')') {
+            if (this.depth > 0) {
+              --this.depth;
+            }
+          } else if (b == '.' && this.depth == 0) {
+            if (i + 1 >= length) {
+              break;
+            }
+            int next = buf[i + 1];
+            if (next == 0x20 || next == 0x09 || next == 0x0a || next == 0x0d ||
+                next == '#' || next == '<' || next == '[' || next == '(' ||
+                next == '@') {
+              cut = i + 1;
+            }
+          }
+        } else if (this.scanState == StateIri) {
+          if (b == '>') {
+            this.scanState = StateNormal;
+          } else if (b == '\\') {
+            this.escaped = true;
+          }
+        } else if (this.scanState == StateShortString) {
+          if (b == '\\') {
+            this.escaped = true;
+          } else if (b == this.quoteChar) {
+            this.scanState = StateNormal;
+          }
+        } else if (this.scanState == StateLongString) {
+          if (b == '\\') {
+            this.escaped = true;
+            this.quoteCount = 0;
+          } else if (b == this.quoteChar) {
+            ++this.quoteCount;
+            if (this.quoteCount == 3) {
+              this.scanState = StateNormal;
+            }
+          } else {
+            this.quoteCount = 0;
+          }
+        } else if (this.scanState == StateComment) {
+          if (b == 0x0a || b == 0x0d) {
+            this.scanState = StateNormal;
+          }
+        }
+        ++i;
+      }
+      this.scanIndex = i;
+      return cut;
+    }
+  }
@@ -0,0 +1,86 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.*;
+
+    /**
+     * Assigns IDs to RDF terms, so that triples can be stored as three
+     * numbers. IDs are assigned in the order the terms are first added,
+     * starting at 0. Blank nodes are identified by their labels, so a
+     * dictionary used with several documents should only be given blank
+     * nodes whose labels don't collide. This class is not thread safe.
+     */
+  public final class RDFTermDictionary {
+    private final HashMap<RDFTerm, Long> ids = new HashMap<RDFTerm, Long>();
+    private final ArrayList<RDFTerm> terms = new ArrayList<RDFTerm>();
+
+    /**
+     * Gets the ID of a term, assigning the next unused ID if the term is not in
+     * the dictionary yet.
+     * @param term An RDF term.
+     * @return The term's ID.
+     * @throws java.lang.NullPointerException The parameter {@code term} is
+     * null.
+     */
+    public long add(RDFTerm term) {
+      if (term == null) {
+        throw new NullPointerException("term");
+      }
+      Long id = this.ids.get(term);
+      if (id != null) {
+        return id.longValue();
+      }
+      // Don't let the dictionary keep the parser's buffers alive
+      term = term.detach();
+      long newId = this.terms.size();
+      this.ids.put(term, newId);
+      this.terms.add(term);
+      return newId;
+    }
+
+    /**
+     * Gets the ID of a term, without adding it.
+     * @param term An RDF term.
+     * @return The term's ID, or -1 if the term is not in the dictionary.
+     * @throws java.lang.NullPointerException The parameter {@code term} is
+     * null.
+     */
+    public long getId(RDFTerm term) {
+      if (term == null) {
+        throw new NullPointerException("term");
+      }
+      Long id = this.ids.get(term);
+      return (id == null) ? -1 : id.longValue();
+    }
+
+    /**
+     * Gets the term with the given ID.
+     * @param id An ID returned by this dictionary.
+     * @return The term with that ID.
+     * @throws IllegalArgumentException The parameter {@code id} is not an ID
+     * in this dictionary.
+     */
+    public RDFTerm getTerm(long id) {
+      if (id < 0 || id >= this.terms.size()) {
+        throw new IllegalArgumentException("id (" + id +
+          ") is not in the dictionary");
+      }
+      return this.terms.get((int)id);
+    }
+
+    /**
+     * Gets the number of terms in this dictionary.
+     * @return The number of terms, which is also the next ID to be
+     * assigned.
+     */
+    public long size() {
+      return this.terms.size();
+    }
+  }
@@ -0,0 +1,116 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.concurrent.atomic.*;
+
+    /**
+     * A bounded table of canonical IRI terms and strings, used by parsers so
+     * that repeated IRIs, data types, and language tags share one instance
+     * each. The table is direct-mapped: each term or string has one slot,
+     * chosen by its hash code, and a new entry replaces the one already in
+     * its slot, so that rare entries are soon evicted while frequent ones
+     * stay. A table can be shared by several parsers, including parsers on
+     * different threads.
+     */
+  public final class RDFTermTable {
+    private static final int DefaultCapacity = 4096;
+
+    private final AtomicReferenceArray<RDFTerm> terms;
+    private final AtomicReferenceArray<String> strings;
+    private final int mask;
+
+    /**
+     * Initializes a new instance of the {@link RDFTermTable} class with room
+     * for 4096 terms and 4096 strings.
+     */
+    public RDFTermTable() {
+ this(DefaultCapacity);
+    }
+
+    /**
+     * Initializes a new instance of the {@link RDFTermTable} class.
+     * @param capacity The number of terms, and the number of strings, the
+     * table can hold. Rounded up to a power of two.
+     * @throws IllegalArgumentException The parameter {@code capacity} is less
+     * than 1 or greater than 2^30.
+     */
+    public RDFTermTable(int capacity) {
+      if (capacity < 1) {
+        throw new IllegalArgumentException("capacity (" + capacity +
+          ") is less than 1");
+      }
+      if (capacity > (1 << 30)) {
+        throw new IllegalArgumentException("capacity (" + capacity +
+          ") is more than " + (1 << 30));
+      }
+      int size = Integer.highestOneBit(capacity);
+      if (size < capacity) {
+        size <<= 1;
+      }
+      this.terms = new AtomicReferenceArray<RDFTerm>(size);
+      this.strings = new AtomicReferenceArray<String>(size);
+      this.mask = size - 1;
+    }
+
+    private int slot(int hash) {
+      return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+    /**
+     * Gets the canonical instance of an IRI term. If the table has no term
+     * equal to the given one, the term is added to the table.
+     * @param term An RDF term.
+     * @return A term equal to the given one; the same instance is returned
+     * for equal IRIs while they stay in the table. Terms other than IRIs
+     * are returned unchanged.
+     * @throws java.lang.NullPointerException The parameter {@code term} is
+     * null.
+     */
+    public RDFTerm intern(RDFTerm term) {
+      if (term == null) {
+        throw new NullPointerException("term");
+      }
+      if (term.getKind() != RDFTerm.IRI) {
+        return term;
+      }
+      int index = this.slot(term.hashCode());
+      RDFTerm canonical = this.terms.get(index);
+      if (canonical != null && canonical.equals(term)) {
+        return canonical;
+      }
+      // Don't keep the parser's input in memory through the table
+      canonical = term.detach();
+      this.terms.set(index, canonical);
+      return canonical;
+    }
+
+    /**
+     * Gets the canonical instance of a string, such as a data type IRI or
+     * language tag. If the table has no string equal to the given one,
+     * the string is added to the table.
+     * @param str A text string.
+     * @return A string equal to the given one; the same instance is returned
+     * for equal strings while they stay in the table.
+     * @throws java.lang.NullPointerException The parameter {@code str} is
+     * null.
+     */
+    public String intern(String str) {
+      if (str == null) {
+        throw new NullPointerException("str");
+      }
+      int index = this.slot(str.hashCode());
+      String canonical = this.strings.get(index);
+      if (str.equals(canonical)) {
+        return canonical;
+      }
+      this.strings.set(index, str);
+      return str;
+    }
+  }
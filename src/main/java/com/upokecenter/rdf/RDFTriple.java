@@ -13,6 +13,8 @@ at: http://peteroupc.github.io/
      */
   public final class RDFTriple {
     private RDFTerm subject, predicate, objectRdf;
+    // Cached hash code, or 0 if not computed yet
+    private int hash;
 
     /**
      * Initializes a new instance of the {@link com.upokecenter.Rdf.getRDFTriple()}
@@ -40,6 +42,7 @@ at: http://peteroupc.github.io/
       this.setSubject(triple.subject);
       this.setPredicate(triple.predicate);
       this.setObject(triple.objectRdf);
+      this.hash = triple.hash;
     }
 
     /**
@@ -55,6 +58,9 @@ at: http://peteroupc.github.io/
       if (other == null) {
         return false;
       }
+      if (this.hash != 0 && other.hash != 0 && this.hash != other.hash) {
+        return false;
+      }
       if (this.objectRdf == null) {
         if (other.objectRdf != null) {
           return false;
@@ -70,12 +76,25 @@ at: http://peteroupc.github.io/
         return false;
       }
       if (this.subject == null) {
-        return other.subject != null;
+        return other.subject == null;
       } else {
-        return !this.subject.equals(other.subject);
+        return this.subject.equals(other.subject);
       }
     }
 
+    /**
+     * Gets a triple equal to this one whose terms don't refer to a parser's
+     * input.
+     * @return This triple, or a copy of it.
+     */
+    RDFTriple detach() {
+      RDFTerm subj = this.subject.detach();
+      RDFTerm pred = this.predicate.detach();
+      RDFTerm obj = this.objectRdf.detach();
+      return (subj == this.subject && pred == this.predicate &&
+        obj == this.objectRdf) ? this : new RDFTriple(subj, pred, obj);
+    }
+
     /**
      * Not documented yet.
      * @return A RDFTerm object.
@@ -105,17 +124,34 @@ at: http://peteroupc.github.io/
      * @return The return value is not documented yet.
      */
     @Override public final int hashCode() {
-      {
-        int prime = 31;
-        int result = prime + ((this.objectRdf == null) ? 0 :
-             this.objectRdf.hashCode());
-        result = (prime * result) +
-            ((this.predicate == null) ? 0 : this.predicate.hashCode());
-        boolean subjnull = this.subject == null;
-        result = (prime * result) + (subjnull ? 0 :
-          this.subject.hashCode());
-        return result;
+      int result = this.hash;
+      if (result == 0) {
+        result = this.hashTerms(true);
+        this.hash = result;
+      }
+      return result;
+    }
+
+    // Computes the hash code, and those of the terms, without using
+    // or filling the caches, as TripleHashBenchmark does to compare
+    // with the cached one
+    int computeHashCode() {
+      return this.hashTerms(false);
+    }
+
+    private int hashTerms(boolean cached) {
+      int prime = 31;
+      int result = prime + hashTerm(this.objectRdf, cached);
+      result = (prime * result) + hashTerm(this.predicate, cached);
+      result = (prime * result) + hashTerm(this.subject, cached);
+      return result;
+    }
+
+    private static int hashTerm(RDFTerm term, boolean cached) {
+      if (term == null) {
+        return 0;
       }
+      return cached ? term.hashCode() : term.computeHashCode();
     }
 
     private void setObject(RDFTerm objectRdf) {
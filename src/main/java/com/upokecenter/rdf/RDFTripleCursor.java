@@ -0,0 +1,88 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.*;
+
+    /**
+     * An iterator over the triples of an RDF document that reads the document
+     * one statement at a time, only when more triples are requested. At most
+     * the triples of a single statement are held in memory at once, and the
+     * caller can stop reading at any point by closing the cursor.
+     */
+  public final class RDFTripleCursor implements Iterator<RDFTriple>,
+    AutoCloseable {
+    private IRDFParser parser;
+    private final ArrayDeque<RDFTriple> pending;
+    private final ITripleHandler collector;
+
+    /**
+     * Initializes a new instance of the {@link RDFTripleCursor} class.
+     * @param parser The parser to read triples from. The cursor takes over
+     * the parser; it should not be used otherwise while the cursor is
+     * open.
+     * @throws java.lang.NullPointerException The parameter {@code parser} is
+     * null.
+     */
+    public RDFTripleCursor(IRDFParser parser) {
+      if (parser == null) {
+        throw new NullPointerException("parser");
+      }
+      this.parser = parser;
+      this.pending = new ArrayDeque<RDFTriple>();
+      this.collector = new TripleCollector(this.pending, false);
+    }
+
+    /**
+     * Determines whether another triple is available, reading statements from
+     * the input until one yields a triple or the input ends.
+     * @return {@code true} if another triple is available; otherwise, {@code
+     * false}.
+     */
+    public boolean hasNext() {
+      while (this.pending.isEmpty()) {
+        if (this.parser == null) {
+          return false;
+        }
+        if (!this.parser.ParseStatement(this.collector)) {
+          this.parser = null;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Gets the next triple in the document.
+     * @return The next triple.
+     * @throws java.util.NoSuchElementException There are no more triples.
+     */
+    public RDFTriple next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return this.pending.removeFirst();
+    }
+
+    /**
+     * Not supported.
+     * @throws UnsupportedOperationException Always thrown.
+     */
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stops reading from the parser and discards any triples not yet
+     * returned. After this call, {@code hasNext} returns {@code false}.
+     */
+    public void close() {
+      this.parser = null;
+      this.pending.clear();
+    }
+  }
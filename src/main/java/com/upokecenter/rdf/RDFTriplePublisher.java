@@ -0,0 +1,244 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+    /**
+     * Publishes the triples of an RDF document to a reactive-streams
+     * subscriber. The document is parsed one statement at a time, and only as
+     * far as needed to satisfy the subscriber's outstanding demand and to
+     * find out whether the document has ended, so a slow subscriber holds
+     * back the parser instead of causing triples to pile up in memory. A publisher supports only one subscriber, since the
+     * underlying parser can read its input only once.
+     */
+  public final class RDFTriplePublisher implements Flow.Publisher<RDFTriple> {
+    private final IRDFParser parser;
+    private final Executor executor;
+    private final AtomicBoolean subscribed;
+
+    /**
+     * Initializes a new instance of the {@link RDFTriplePublisher} class that
+     * parses on the common fork-join pool.
+     * @param parser The parser to read triples from.
+     * @throws java.lang.NullPointerException The parameter {@code parser} is
+     * null.
+     */
+    public RDFTriplePublisher(IRDFParser parser) {
+ this(parser, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes a new instance of the {@link RDFTriplePublisher} class.
+     * @param parser The parser to read triples from.
+     * @param executor The executor on which parsing and signals to the
+     * subscriber take place.
+     * @throws java.lang.NullPointerException The parameter {@code parser} or
+     * {@code executor} is null.
+     */
+    public RDFTriplePublisher(IRDFParser parser, Executor executor) {
+      if (parser == null) {
+        throw new NullPointerException("parser");
+      }
+      if (executor == null) {
+        throw new NullPointerException("executor");
+      }
+      this.parser = parser;
+      this.executor = executor;
+      this.subscribed = new AtomicBoolean();
+    }
+
+    /**
+     * Adds a subscriber. Its {@code onSubscribe} method is called on the
+     * executor, like its other methods, so that it never runs at the same
+     * time as them. If this publisher already has a subscriber, the new
+     * subscriber receives an {@code IllegalStateException} through its
+     * {@code onError} method.
+     * @param subscriber The subscriber.
+     * @throws java.lang.NullPointerException The parameter {@code subscriber}
+     * is null.
+     */
+    public void subscribe(Flow.Subscriber<? super RDFTriple> subscriber) {
+      if (subscriber == null) {
+        throw new NullPointerException("subscriber");
+      }
+      if (!this.subscribed.compareAndSet(false, true)) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+          public void request(long n) {
+          }
+
+          public void cancel() {
+          }
+        });
+        subscriber.onError(
+          new IllegalStateException("This publisher already has a subscriber"));
+        return;
+      }
+      TripleSubscription subscription = new TripleSubscription(
+        subscriber,
+        new RDFTripleCursor(this.parser),
+        this.executor);
+      // The drain calls onSubscribe, so that it can't overlap with
+      // onNext; this also lets an empty document complete before any
+      // request
+      subscription.schedule();
+    }
+
+    private static final class TripleSubscription implements Flow.Subscription,
+      Runnable {
+      private final Flow.Subscriber<? super RDFTriple> subscriber;
+      private final RDFTripleCursor cursor;
+      private final Executor executor;
+      private final AtomicLong requested = new AtomicLong();
+      private final AtomicInteger pendingDrains = new AtomicInteger();
+      private volatile boolean cancelled;
+      private volatile boolean badRequest;
+      private boolean started;
+      private boolean done;
+
+      public TripleSubscription(
+  Flow.Subscriber<? super RDFTriple> subscriber,
+  RDFTripleCursor cursor,
+  Executor executor) {
+        this.subscriber = subscriber;
+        this.cursor = cursor;
+        this.executor = executor;
+      }
+
+      public void request(long n) {
+        if (n <= 0) {
+          this.badRequest = true;
+        } else {
+          while (true) {
+            long current = this.requested.get();
+            long next = current + n;
+            if (next < 0) {
+              // Demand of Long.MAX_VALUE or more is treated as unbounded
+              next = Long.MAX_VALUE;
+            }
+            if (this.requested.compareAndSet(current, next)) {
+              break;
+            }
+          }
+        }
+        this.schedule();
+      }
+
+      public void cancel() {
+        this.cancelled = true;
+        this.schedule();
+      }
+
+      private void schedule() {
+        if (this.pendingDrains.getAndIncrement() == 0) {
+          try {
+            this.executor.execute(this);
+          } catch (RejectedExecutionException ex) {
+            // No drain is running, so signalling here is still serial
+            this.cancelled = true;
+            if (!this.started) {
+              this.started = true;
+              this.subscriber.onSubscribe(this);
+            }
+            this.fail(ex);
+          }
+        }
+      }
+
+      private void fail(Throwable ex) {
+        this.done = true;
+        this.cursor.close();
+        this.subscriber.onError(ex);
+      }
+
+      // Completes the subscriber if the cursor has no more triples, or
+      // fails it if reading the next triple fails. Returns false in
+      // either case.
+      private boolean checkNext() {
+        try {
+          if (this.cursor.hasNext()) {
+            return true;
+          }
+        } catch (Exception ex) {
+          // Also catches the parsers' ParserException
+          this.fail(ex);
+          return false;
+        }
+        this.done = true;
+        this.cursor.close();
+        this.subscriber.onComplete();
+        return false;
+      }
+
+      // Calls onSubscribe on the first run, then emits triples while
+      // there is demand. Only one thread runs this method at a time;
+      // calls to schedule() made while it runs are picked up by the
+      // loop instead of starting another drain.
+      public void run() {
+        int missed = 1;
+        if (!this.started) {
+          this.started = true;
+          try {
+            this.subscriber.onSubscribe(this);
+          } catch (RuntimeException ex) {
+            this.cancelled = true;
+          }
+        }
+        while (true) {
+          if (this.done) {
+            return;
+          }
+          if (this.cancelled) {
+            this.done = true;
+            this.cursor.close();
+            return;
+          }
+          if (this.badRequest) {
+            this.cancelled = true;
+            this.fail(new IllegalArgumentException(
+              "Requested a non-positive number of triples"));
+            return;
+          }
+          long demand = this.requested.get();
+          long emitted = 0;
+          while (emitted != demand && !this.cancelled) {
+            if (!this.checkNext()) {
+              return;
+            }
+            RDFTriple triple = this.cursor.next();
+            try {
+              this.subscriber.onNext(triple);
+            } catch (RuntimeException ex) {
+              // The subscriber broke the contract; treat the
+              // subscription as cancelled (Reactive Streams rule 2.13)
+              this.cancelled = true;
+              this.done = true;
+              this.cursor.close();
+              return;
+            }
+            ++emitted;
+          }
+          // Complete without waiting for more demand once the input
+          // is used up (Reactive Streams rule 1.5), which also covers
+          // an empty document before any request
+          if (emitted == demand && !this.cancelled && !this.checkNext()) {
+            return;
+          }
+          if (emitted != 0 && demand != Long.MAX_VALUE) {
+            this.requested.addAndGet(-emitted);
+          }
+          missed = this.pendingDrains.addAndGet(-missed);
+          if (missed == 0) {
+            return;
+          }
+        }
+      }
+    }
+  }
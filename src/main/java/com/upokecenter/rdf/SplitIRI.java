@@ -0,0 +1,97 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * An IRI stored as a namespace IRI, which is typically shared by many
+     * IRIs, followed by a local name. Its characters are those of the
+     * namespace followed by those of the local name.
+     */
+  final class SplitIRI implements CharSequence {
+    private final String namespace;
+    private final String localName;
+
+    /**
+     * Initializes a new instance of the {@link SplitIRI} class.
+     * @param namespace The namespace IRI.
+     * @param localName The local name.
+     */
+    public SplitIRI(String namespace, String localName) {
+      this.namespace = namespace;
+      this.localName = localName;
+    }
+
+    public int length() {
+      return this.namespace.length() + this.localName.length();
+    }
+
+    public char charAt(int index) {
+      int nslength = this.namespace.length();
+      return (index < nslength) ? this.namespace.charAt(index) :
+        this.localName.charAt(index - nslength);
+    }
+
+    public CharSequence subSequence(int start, int end) {
+      return this.toString().substring(start, end);
+    }
+
+    /**
+     * Determines whether the given character sequence has the same characters
+     * as this IRI.
+     * @param other A character sequence.
+     * @return {@code true} if the characters are the same; otherwise, {@code
+     * false}.
+     */
+    public boolean contentEquals(CharSequence other) {
+      if (other instanceof SplitIRI) {
+        SplitIRI split = (SplitIRI)other;
+        if (this.namespace.equals(split.namespace)) {
+          return this.localName.equals(split.localName);
+        }
+      } else if (other instanceof String) {
+        String str = (String)other;
+        return str.length() == this.length() &&
+          str.startsWith(this.namespace) &&
+          str.endsWith(this.localName);
+      }
+      int length = this.length();
+      if (length != other.length()) {
+        return false;
+      }
+      for (int i = 0; i < length; ++i) {
+        if (this.charAt(i) != other.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Calculates the same hash code as the equivalent string would have.
+     * @return A 32-bit hash code.
+     */
+    @Override public int hashCode() {
+      // Continues the namespace's (cached) string hash code
+      // over the local name
+      int hash = this.namespace.hashCode();
+      int length = this.localName.length();
+      for (int i = 0; i < length; ++i) {
+        hash = (31 * hash) + this.localName.charAt(i);
+      }
+      return hash;
+    }
+
+    /**
+     * Gets the full IRI.
+     * @return The namespace followed by the local name.
+     */
+    @Override public String toString() {
+      return this.namespace + this.localName;
+    }
+  }
@@ -0,0 +1,320 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.*;
+
+    /**
+     * A compact set of RDF triples, stored as three columns of term IDs from
+     * an {@link RDFTermDictionary} rather than as RDFTriple objects. Each
+     * triple takes 12 bytes in the columns plus its entry in a hash index
+     * used to skip duplicates. A parser fills a buffer directly with
+     * {@code parser.Parse(buffer.getDictionary(), buffer)}, and {@link
+     * #asSet()} gives a read-only view of the triples as RDFTriple objects.
+     * This class is not thread safe.
+     */
+  public final class TripleBuffer implements ITripleIdHandler {
+    private static final int InitialCapacity = 16;
+
+    private final RDFTermDictionary dictionary;
+    private int[] subjects;
+    private int[] predicates;
+    private int[] objects;
+    private int size;
+    // Open-addressing index of the rows; each slot holds
+    // a row number plus 1, or 0 if the slot is empty
+    private int[] index;
+
+    /**
+     * Initializes a new instance of the {@link TripleBuffer} class with a new
+     * term dictionary.
+     */
+    public TripleBuffer() {
+ this(new RDFTermDictionary());
+    }
+
+    /**
+     * Initializes a new instance of the {@link TripleBuffer} class.
+     * @param dictionary The dictionary that assigns IDs to the terms of the
+     * triples in this buffer. It can be shared with other buffers.
+     * @throws java.lang.NullPointerException The parameter {@code dictionary}
+     * is null.
+     */
+    public TripleBuffer(RDFTermDictionary dictionary) {
+      if (dictionary == null) {
+        throw new NullPointerException("dictionary");
+      }
+      this.dictionary = dictionary;
+      this.subjects = new int[InitialCapacity];
+      this.predicates = new int[InitialCapacity];
+      this.objects = new int[InitialCapacity];
+      this.index = new int[InitialCapacity * 2];
+    }
+
+    /**
+     * Gets the dictionary that assigns IDs to the terms in this buffer.
+     * @return The term dictionary.
+     */
+    public RDFTermDictionary getDictionary() {
+      return this.dictionary;
+    }
+
+    /**
+     * Gets the number of triples in this buffer.
+     * @return The number of triples.
+     */
+    public int size() {
+      return this.size;
+    }
+
+    /**
+     * Gets the ID of the subject of the triple in the given row. Rows are
+     * numbered from 0 in the order the triples were added.
+     * @param row The row number.
+     * @return The subject's ID in the term dictionary.
+     * @throws IndexOutOfBoundsException The parameter {@code row} is less
+     * than 0 or not less than the number of triples.
+     */
+    public long getSubject(int row) {
+      this.checkRow(row);
+      return this.subjects[row];
+    }
+
+    /**
+     * Gets the ID of the predicate of the triple in the given row.
+     * @param row The row number.
+     * @return The predicate's ID in the term dictionary.
+     * @throws IndexOutOfBoundsException The parameter {@code row} is less
+     * than 0 or not less than the number of triples.
+     */
+    public long getPredicate(int row) {
+      this.checkRow(row);
+      return this.predicates[row];
+    }
+
+    /**
+     * Gets the ID of the object of the triple in the given row.
+     * @param row The row number.
+     * @return The object's ID in the term dictionary.
+     * @throws IndexOutOfBoundsException The parameter {@code row} is less
+     * than 0 or not less than the number of triples.
+     */
+    public long getObject(int row) {
+      this.checkRow(row);
+      return this.objects[row];
+    }
+
+    /**
+     * Gets the triple in the given row as an RDFTriple object.
+     * @param row The row number.
+     * @return The triple in that row.
+     * @throws IndexOutOfBoundsException The parameter {@code row} is less
+     * than 0 or not less than the number of triples.
+     */
+    public RDFTriple getTriple(int row) {
+      this.checkRow(row);
+      return new RDFTriple(
+  this.dictionary.getTerm(this.subjects[row]),
+  this.dictionary.getTerm(this.predicates[row]),
+  this.dictionary.getTerm(this.objects[row]));
+    }
+
+    private void checkRow(int row) {
+      if (row < 0 || row >= this.size) {
+        throw new IndexOutOfBoundsException("row (" + row + ")");
+      }
+    }
+
+    /**
+     * Adds a triple given as term IDs, unless this buffer already has it.
+     * @param subject The ID of the triple's subject.
+     * @param predicate The ID of the triple's predicate.
+     * @param objectRdf The ID of the triple's object.
+     * @return {@code true} if the triple was added; {@code false} if it was
+     * already in this buffer.
+     * @throws IllegalArgumentException An ID is less than 0 or doesn't fit in
+     * 31 bits.
+     */
+    public boolean add(long subject, long predicate, long objectRdf) {
+      int s = checkId(subject);
+      int p = checkId(predicate);
+      int o = checkId(objectRdf);
+      int slot = this.findSlot(s, p, o);
+      if (this.index[slot] != 0) {
+        return false;
+      }
+      if (this.size == this.subjects.length) {
+        int newLength = this.size * 2;
+        this.subjects = Arrays.copyOf(this.subjects, newLength);
+        this.predicates = Arrays.copyOf(this.predicates, newLength);
+        this.objects = Arrays.copyOf(this.objects, newLength);
+      }
+      this.subjects[this.size] = s;
+      this.predicates[this.size] = p;
+      this.objects[this.size] = o;
+      ++this.size;
+      this.index[slot] = this.size;
+      // Keep the index at most half full
+      if (this.size * 2 > this.index.length) {
+        this.rehash();
+      }
+      return true;
+    }
+
+    /**
+     * Adds a triple, adding its terms to the dictionary as needed.
+     * @param triple An RDF triple.
+     * @return {@code true} if the triple was added; {@code false} if it was
+     * already in this buffer.
+     * @throws java.lang.NullPointerException The parameter {@code triple} is
+     * null.
+     */
+    public boolean add(RDFTriple triple) {
+      if (triple == null) {
+        throw new NullPointerException("triple");
+      }
+      return this.add(
+  this.dictionary.add(triple.getSubject()),
+  this.dictionary.add(triple.getPredicate()),
+  this.dictionary.add(triple.getObject()));
+    }
+
+    /**
+     * Adds a triple read by a parser. Same as {@code add(subject, predicate,
+     * objectRdf)}.
+     * @param subject The ID of the triple's subject.
+     * @param predicate The ID of the triple's predicate.
+     * @param objectRdf The ID of the triple's object.
+     */
+    public void handleTriple(long subject, long predicate, long objectRdf) {
+      this.add(subject, predicate, objectRdf);
+    }
+
+    /**
+     * Determines whether this buffer has a triple given as term IDs.
+     * @param subject The ID of the triple's subject.
+     * @param predicate The ID of the triple's predicate.
+     * @param objectRdf The ID of the triple's object.
+     * @return {@code true} if the triple is in this buffer; otherwise, {@code
+     * false}.
+     */
+    public boolean contains(long subject, long predicate, long objectRdf) {
+      if (!isValidId(subject) || !isValidId(predicate) ||
+          !isValidId(objectRdf)) {
+        return false;
+      }
+      int slot = this.findSlot((int)subject, (int)predicate, (int)objectRdf);
+      return this.index[slot] != 0;
+    }
+
+    /**
+     * Determines whether this buffer has the given triple.
+     * @param triple An RDF triple.
+     * @return {@code true} if the triple is in this buffer; otherwise, {@code
+     * false}.
+     */
+    public boolean contains(RDFTriple triple) {
+      if (triple == null) {
+        return false;
+      }
+      long s = this.dictionary.getId(triple.getSubject());
+      long p = this.dictionary.getId(triple.getPredicate());
+      long o = this.dictionary.getId(triple.getObject());
+      return this.contains(s, p, o);
+    }
+
+    /**
+     * Gets a read-only view of the triples in this buffer as a set. The
+     * view's iterator creates an RDFTriple object for each triple, in the
+     * order the triples were added, and the view reflects triples added
+     * later.
+     * @return A read-only set of RDF triples.
+     */
+    public Set<RDFTriple> asSet() {
+      return new AbstractSet<RDFTriple>() {
+        public int size() {
+          return TripleBuffer.this.size;
+        }
+
+        public boolean contains(Object o) {
+          return (o instanceof RDFTriple) &&
+            TripleBuffer.this.contains((RDFTriple)o);
+        }
+
+        public Iterator<RDFTriple> iterator() {
+          return new Iterator<RDFTriple>() {
+            private int row;
+
+            public boolean hasNext() {
+              return this.row < TripleBuffer.this.size;
+            }
+
+            public RDFTriple next() {
+              if (!this.hasNext()) {
+                throw new NoSuchElementException();
+              }
+              return TripleBuffer.this.getTriple(this.row++);
+            }
+          };
+        }
+      };
+    }
+
+    private static boolean isValidId(long id) {
+      return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    private static int checkId(long id) {
+      if (!isValidId(id)) {
+        throw new IllegalArgumentException("id (" + id + ") is out of range");
+      }
+      return (int)id;
+    }
+
+    private static int hash(int s, int p, int o) {
+      int h = ((s * 31) + p) * 31 + o;
+      h *= 0x9e3779b9;
+      return h ^ (h >>> 16);
+    }
+
+    // Finds the index slot holding the given triple, or the
+    // empty slot where it would be inserted
+    private int findSlot(int s, int p, int o) {
+      int mask = this.index.length - 1;
+      int slot = hash(s, p, o) & mask;
+      while (true) {
+        int entry = this.index[slot];
+        if (entry == 0) {
+          return slot;
+        }
+        int row = entry - 1;
+        if (this.subjects[row] == s && this.predicates[row] == p &&
+            this.objects[row] == o) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    private void rehash() {
+      int[] newIndex = new int[this.index.length * 2];
+      int mask = newIndex.length - 1;
+      for (int row = 0; row < this.size; ++row) {
+        int slot = hash(
+  this.subjects[row],
+  this.predicates[row],
+  this.objects[row]) & mask;
+        while (newIndex[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        newIndex[slot] = row + 1;
+      }
+      this.index = newIndex;
+    }
+  }
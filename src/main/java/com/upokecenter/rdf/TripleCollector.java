@@ -0,0 +1,39 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.util.*;
+
+    /**
+     * Triple handler that adds each triple to a collection.
+     */
+  final class TripleCollector implements ITripleHandler {
+    private final Collection<RDFTriple> triples;
+    private final boolean detach;
+
+    public TripleCollector(Collection<RDFTriple> triples) {
+      this(triples, true);
+    }
+
+    /**
+     * Initializes a new instance of the {@link TripleCollector} class.
+     * @param triples The collection to add triples to.
+     * @param detach If true, the triples' terms are first detached from the
+     * parser's input, so that keeping the collection doesn't keep that
+     * input in memory. Pass false if the triples are only held briefly.
+     */
+    public TripleCollector(Collection<RDFTriple> triples, boolean detach) {
+      this.triples = triples;
+      this.detach = detach;
+    }
+
+    public void handleTriple(RDFTriple triple) {
+      this.triples.add(this.detach ? triple.detach() : triple);
+    }
+  }
@@ -0,0 +1,31 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * Passes the triples a parser reads to an ITripleHandler as RDFTriple
+     * objects.
+     */
+  final class TripleHandlerSink implements ITripleSink {
+    private final ITripleHandler handler;
+
+    public TripleHandlerSink(ITripleHandler handler) {
+      if (handler == null) {
+        throw new NullPointerException("handler");
+      }
+      this.handler = handler;
+    }
+
+    public void handleTriple(
+  RDFTerm subject,
+  RDFTerm predicate,
+  RDFTerm objectRdf) {
+      this.handler.handleTriple(new RDFTriple(subject, predicate, objectRdf));
+    }
+  }
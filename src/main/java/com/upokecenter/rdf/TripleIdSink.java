@@ -0,0 +1,39 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * Passes the triples a parser reads to an ITripleIdHandler, as the IDs the
+     * terms have in a term dictionary.
+     */
+  final class TripleIdSink implements ITripleSink {
+    private final RDFTermDictionary dictionary;
+    private final ITripleIdHandler handler;
+
+    public TripleIdSink(RDFTermDictionary dictionary, ITripleIdHandler handler) {
+      if (dictionary == null) {
+        throw new NullPointerException("dictionary");
+      }
+      if (handler == null) {
+        throw new NullPointerException("handler");
+      }
+      this.dictionary = dictionary;
+      this.handler = handler;
+    }
+
+    public void handleTriple(
+  RDFTerm subject,
+  RDFTerm predicate,
+  RDFTerm objectRdf) {
+      this.handler.handleTriple(
+  this.dictionary.add(subject),
+  this.dictionary.add(predicate),
+  this.dictionary.add(objectRdf));
+    }
+  }
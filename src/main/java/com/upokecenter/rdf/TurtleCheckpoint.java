@@ -0,0 +1,85 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.io.*;
+import java.util.*;
+
+    /**
+     * The state of a {@link TurtleParser} between two statements: the byte
+     * offset of the next statement, and the prefixes, base URI, and blank
+     * node labels in effect at that point. A new parser created from a
+     * checkpoint, given the input starting at that offset, continues as
+     * if the document had been parsed from the beginning. Checkpoints can
+     * be serialized, so that a long parse can resume after a restart.
+     */
+  public final class TurtleCheckpoint implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final long offset;
+    private final String baseURI;
+    private final HashMap<String, String> namespaces;
+    private final int blankNodeCounter;
+    private final HashMap<String, String> blankNodeLabels;
+
+    TurtleCheckpoint(
+  long offset,
+  String baseURI,
+  Map<String, String> namespaces,
+  int blankNodeCounter,
+  Map<String, String> blankNodeLabels) {
+      this.offset = offset;
+      this.baseURI = baseURI;
+      this.namespaces = new HashMap<String, String>(namespaces);
+      this.blankNodeCounter = blankNodeCounter;
+      this.blankNodeLabels = new HashMap<String, String>(blankNodeLabels);
+    }
+
+    /**
+     * Gets the byte offset in the document at which parsing resumes.
+     * @return The byte offset from the start of the document.
+     */
+    public long getOffset() {
+      return this.offset;
+    }
+
+    /**
+     * Gets the base URI in effect at the checkpoint.
+     * @return The base URI.
+     */
+    public String getBaseURI() {
+      return this.baseURI;
+    }
+
+    /**
+     * Gets the prefixes declared before the checkpoint.
+     * @return A read-only map from prefixes to namespace IRIs.
+     */
+    public Map<String, String> getNamespaces() {
+      return Collections.unmodifiableMap(this.namespaces);
+    }
+
+    /**
+     * Gets the number of blank nodes the parser generated before the
+     * checkpoint.
+     * @return The blank node count.
+     */
+    public int getBlankNodeCounter() {
+      return this.blankNodeCounter;
+    }
+
+    /**
+     * Gets the blank node labels from the document that the parser replaced
+     * before the checkpoint.
+     * @return A read-only map from labels in the document to the labels used
+     * in their place.
+     */
+    public Map<String, String> getBlankNodeLabels() {
+      return Collections.unmodifiableMap(this.blankNodeLabels);
+    }
+  }
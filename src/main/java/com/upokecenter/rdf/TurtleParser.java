@@ -8,6 +8,8 @@ If you like this, you should donate to Peter O.
 at: http://peteroupc.github.io/
 */
 
+import java.io.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import com.upokecenter.util.*;
@@ -92,18 +94,98 @@ public final void setObj(TurtleObject value) {
         }
     }
 
+    // Maximum number of resolved relative references to remember
+    private static final int MaxResolvedIRIs = 256;
+
+    // Bitmaps of the characters in the Basic Multilingual Plane
+    // for which isNameChar, isNameStartChar, and isNameStartCharU
+    // are true; above it, all three are true up to U+EFFFF. The
+    // range chains they are built from stay package-private for
+    // NameCharBenchmark, which compares the two.
+    private static final long[] NameChars = new long[0x10000 >> 6];
+    private static final long[] NameStartChars = new long[0x10000 >> 6];
+    private static final long[] NameStartCharsU = new long[0x10000 >> 6];
+
+    static {
+      for (int ch = 0; ch < 0x10000; ++ch) {
+        if (inNameCharRanges(ch)) {
+          NameChars[ch >> 6] |= 1L << ch;
+        }
+        if (inNameStartCharRanges(ch)) {
+          NameStartChars[ch >> 6] |= 1L << ch;
+        }
+        if (inNameStartCharURanges(ch)) {
+          NameStartCharsU[ch >> 6] |= 1L << ch;
+        }
+      }
+    }
+
+    static boolean inNameCharRanges(int ch) {
+      return (ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9') ||
+          (ch >= 'A' && ch <= 'Z') || ch == '_' || ch == '-' ||
+          ch == 0xb7 || (ch >= 0xc0 && ch <= 0xd6) ||
+          (ch >= 0xd8 && ch <= 0xf6) || (ch >= 0xf8 && ch <= 0x37d) ||
+          (ch >= 0x37f && ch <= 0x1fff) || (ch >= 0x200c && ch <= 0x200d) ||
+          ch == 0x203f || ch == 0x2040 || (ch >= 0x2070 && ch <= 0x218f) ||
+          (ch >= 0x2c00 && ch <= 0x2fef) || (ch >= 0x3001 && ch <= 0xd7ff) ||
+          (ch >= 0xf900 && ch <= 0xfdcf) || (ch >= 0xfdf0 && ch <= 0xfffd) ||
+          (ch >= 0x10000 && ch <= 0xeffff);
+    }
+
+    static boolean inNameStartCharRanges(int ch) {
+      return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') ||
+          (ch >= 0xc0 && ch <= 0xd6) || (ch >= 0xd8 && ch <= 0xf6) ||
+          (ch >= 0xf8 && ch <= 0x2ff) || (ch >= 0x370 && ch <= 0x37d) ||
+          (ch >= 0x37f && ch <= 0x1fff) || (ch >= 0x200c && ch <= 0x200d) ||
+          (ch >= 0x2070 && ch <= 0x218f) || (ch >= 0x2c00 && ch <= 0x2fef) ||
+          (ch >= 0x3001 && ch <= 0xd7ff) || (ch >= 0xf900 && ch <= 0xfdcf) ||
+          (ch >= 0xfdf0 && ch <= 0xfffd) || (ch >= 0x10000 && ch <= 0xeffff);
+    }
+
+    static boolean inNameStartCharURanges(int ch) {
+      return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch ==
+          '_' || (ch >= 0xc0 && ch <= 0xd6) || (ch >= 0xd8 && ch <= 0xf6) ||
+            (ch >= 0xf8 && ch <= 0x2ff) || (ch >= 0x370 && ch <= 0x37d) ||
+            (ch >= 0x37f && ch <= 0x1fff) || (ch >= 0x200c && ch <= 0x200d) ||
+            (ch >= 0x2070 && ch <= 0x218f) || (ch >= 0x2c00 && ch <= 0x2fef) ||
+            (ch >= 0x3001 && ch <= 0xd7ff) || (ch >= 0xf900 && ch <= 0xfdcf) ||
+            (ch >= 0xfdf0 && ch <= 0xfffd) || (ch >= 0x10000 && ch <= 0xeffff);
+    }
+
+    // Blank node labels from the document that were replaced
     private Map<String, RDFTerm> bnodeLabels;
     private Map<String, String> namespaces;
+    // The same prefixes as in namespaces, for looking up
+    // prefixed names without building the prefix
+    private final PrefixTrie prefixes = new PrefixTrie();
 
     private String baseURI;
+    // The base URI split into its components, or null if it
+    // isn't a valid IRI
+    private URIUtility.ParsedIRI baseIRI;
+    // Relative references already resolved against the current
+    // base URI, least recently used first
+    private final LinkedHashMap<String, String> resolvedIRIs =
+      new LinkedHashMap<String, String>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override protected boolean removeEldestEntry(
+  Map.Entry<String, String> eldest) {
+          return this.size() > MaxResolvedIRIs;
+        }
+      };
 
     private TurtleObject curSubject;
 
     private RDFTerm curPredicate;
 
-    private StackableCharacterInput input;
+    private TurtleTokenizer tokens;
+    private RDFTermTable termTable = new RDFTermTable();
     private int curBlankNode = 0;
 
+    // Set only when reading from a byte stream, for checkpoints
+    private Utf8CharacterInput byteInput;
+
     /**
      * Initializes a new instance of the {@link com.upokecenter.Rdf.getTurtleParser()}
      * class.
@@ -122,6 +204,48 @@ public final void setObj(TurtleObject value) {
      * baseURI} is null.
      */
     public TurtleParser(IByteReader stream, String baseURI) {
+ this(stream, 0, baseURI);
+    }
+
+    /**
+     * Initializes a new instance of the {@link TurtleParser} class that reads
+     * a file through memory-mapped windows instead of a stream. The bytes of
+     * each window are copied in bulk into the parser's decoding buffer
+     * rather than decoded in place. Parsing starts at the channel's current
+     * position, and checkpoint offsets are positions in the file.
+     * @param channel A file channel open for reading, such as one returned by
+     * {@code FileChannel.open(path)}. It must stay open while the parser
+     * is used.
+     * @throws java.lang.NullPointerException The parameter {@code channel} is
+     * null.
+     * @throws java.io.IOException An I/O error occurred.
+     */
+    public TurtleParser(FileChannel channel) throws IOException {
+ this(channel,"about:blank");
+    }
+
+    /**
+     * Initializes a new instance of the {@link TurtleParser} class that reads
+     * a file through memory-mapped windows instead of a stream. The bytes of
+     * each window are copied in bulk into the parser's decoding buffer
+     * rather than decoded in place. Parsing starts at the channel's current
+     * position, and checkpoint offsets are positions in the file.
+     * @param channel A file channel open for reading. It must stay open while
+     * the parser is used.
+     * @param baseURI The base URI of the document.
+     * @throws java.lang.NullPointerException The parameter {@code channel} or
+     * {@code baseURI} is null.
+     * @throws java.io.IOException An I/O error occurred.
+     */
+    public TurtleParser(FileChannel channel, String baseURI) throws IOException {
+ this(new MappedFileByteReader(channel), baseURI);
+    }
+
+    private TurtleParser(MappedFileByteReader reader, String baseURI) {
+ this(reader, reader.getStartPosition(), baseURI);
+    }
+
+    private TurtleParser(IByteReader stream, long offset, String baseURI) {
       if (stream == null) {
         throw new NullPointerException("stream");
       }
@@ -131,13 +255,86 @@ public final void setObj(TurtleObject value) {
       if (!URIUtility.hasScheme(baseURI)) {
         throw new IllegalArgumentException("baseURI");
       }
-      this.input = new StackableCharacterInput(
-          Encodings.GetDecoderInput(Encodings.UTF8, stream));
-      this.baseURI = baseURI;
+      this.byteInput = new Utf8CharacterInput(stream, offset);
+      this.tokens = new TurtleTokenizer(
+  this.byteInput,
+  this.byteInput,
+  this.prefixes);
+      this.setBaseURI(baseURI);
       this.bnodeLabels = new HashMap<String, RDFTerm>();
       this.namespaces = new HashMap<String, String>();
     }
 
+    /**
+     * Initializes a new instance of the {@link TurtleParser} class that
+     * resumes parsing a document from a checkpoint.
+     * @param stream A byte stream positioned at the checkpoint's offset in the
+     * document (see {@link TurtleCheckpoint#getOffset()}).
+     * @param checkpoint A checkpoint obtained from {@code getCheckpoint} while
+     * parsing the same document.
+     * @throws java.lang.NullPointerException The parameter {@code stream} or
+     * {@code checkpoint} is null.
+     */
+    public TurtleParser(IByteReader stream, TurtleCheckpoint checkpoint) {
+      if (stream == null) {
+        throw new NullPointerException("stream");
+      }
+      if (checkpoint == null) {
+        throw new NullPointerException("checkpoint");
+      }
+      this.byteInput = new Utf8CharacterInput(stream, checkpoint.getOffset());
+      this.tokens = new TurtleTokenizer(
+  this.byteInput,
+  this.byteInput,
+  this.prefixes);
+      this.setBaseURI(checkpoint.getBaseURI());
+      this.namespaces = new HashMap<String, String>(checkpoint.getNamespaces());
+      for (Map.Entry<String, String> entry : this.namespaces.entrySet()) {
+        this.prefixes.put(entry.getKey(), entry.getValue());
+      }
+      this.curBlankNode = checkpoint.getBlankNodeCounter();
+      this.bnodeLabels = new HashMap<String, RDFTerm>();
+      for (Map.Entry<String, String> entry :
+          checkpoint.getBlankNodeLabels().entrySet()) {
+        this.bnodeLabels.put(
+  entry.getKey(),
+  RDFTerm.fromBlankNode(entry.getValue()));
+      }
+    }
+
+    /**
+     * Initializes a new instance of the {@link TurtleParser} class that
+     * resumes parsing a file from a checkpoint, reading it through
+     * memory-mapped windows. Sets the channel's position to the checkpoint's
+     * offset, which is a position in the file.
+     * @param channel A file channel open for reading the same file the
+     * checkpoint was obtained from. It must stay open while the parser is
+     * used.
+     * @param checkpoint A checkpoint obtained from {@code getCheckpoint} while
+     * parsing the file.
+     * @throws java.lang.NullPointerException The parameter {@code channel} or
+     * {@code checkpoint} is null.
+     * @throws java.io.IOException An I/O error occurred.
+     */
+    public TurtleParser(
+  FileChannel channel,
+  TurtleCheckpoint checkpoint) throws IOException {
+ this(mapFromCheckpoint(channel, checkpoint), checkpoint);
+    }
+
+    private static MappedFileByteReader mapFromCheckpoint(
+  FileChannel channel,
+  TurtleCheckpoint checkpoint) throws IOException {
+      if (channel == null) {
+        throw new NullPointerException("channel");
+      }
+      if (checkpoint == null) {
+        throw new NullPointerException("checkpoint");
+      }
+      channel.position(checkpoint.getOffset());
+      return new MappedFileByteReader(channel);
+    }
+
     /**
      * Initializes a new instance of the {@link com.upokecenter.Rdf.getTurtleParser()}
      * class.
@@ -165,72 +362,132 @@ public final void setObj(TurtleObject value) {
       if (!URIUtility.hasScheme(baseURI)) {
         throw new IllegalArgumentException("baseURI");
       }
-      this.input = new StackableCharacterInput(
-          Encodings.StringToInput(str));
-      this.baseURI = baseURI;
+      this.tokens = new TurtleTokenizer(
+  new RingBufferCharacterInput(Encodings.StringToInput(str)),
+  null,
+  this.prefixes);
+      this.setBaseURI(baseURI);
+      this.bnodeLabels = new HashMap<String, RDFTerm>();
+      this.namespaces = new HashMap<String, String>();
+    }
+
+    /**
+     * Initializes a new instance of the {@link TurtleParser} class that reads
+     * from an already decoded character input.
+     * @param input A markable character input. If it can't peek at
+     * characters, it is read through a ring buffer that can.
+     * @param baseURI The base URI of the document.
+     */
+    TurtleParser(IMarkableCharacterInput input, String baseURI) {
+      if (input == null) {
+        throw new NullPointerException("input");
+      }
+      if (baseURI == null) {
+        throw new NullPointerException("baseURI");
+      }
+      if (!URIUtility.hasScheme(baseURI)) {
+        throw new IllegalArgumentException("baseURI");
+      }
+      this.tokens = new TurtleTokenizer(input, null, this.prefixes);
+      this.setBaseURI(baseURI);
       this.bnodeLabels = new HashMap<String, RDFTerm>();
       this.namespaces = new HashMap<String, String>();
     }
 
+    /**
+     * Gets a checkpoint from which a new parser can resume parsing this
+     * document. This method is meant to be called between calls to {@code
+     * ParseStatement}, when the parser is at a statement boundary. The
+     * checkpoint's offset is the end of the statement's last token.
+     * @return A checkpoint for the parser's current position.
+     * @throws IllegalStateException This parser doesn't read from a byte
+     * stream.
+     */
+    public TurtleCheckpoint getCheckpoint() {
+      if (this.byteInput == null) {
+        throw new IllegalStateException(
+          "Checkpoints are available only when parsing a byte stream");
+      }
+      Map<String, String> labels = new HashMap<String, String>();
+      for (Map.Entry<String, RDFTerm> entry : this.bnodeLabels.entrySet()) {
+        labels.put(entry.getKey(), entry.getValue().getValue());
+      }
+      return new TurtleCheckpoint(
+  this.tokens.getByteOffset(),
+  this.baseURI,
+  this.namespaces,
+  this.curBlankNode,
+  labels);
+    }
+
     private RDFTerm AllocateBlankNode() {
       ++this.curBlankNode;
-      // A period is included so as not to conflict
-      // with user-defined blank node labels (this is allowed
-      // because the syntax for blank node identifiers is
-      // not concretely defined)
-      String label = "." +
-          (this.curBlankNode).toString();
-      RDFTerm node = RDFTerm.fromBlankNode(label);
-      this.bnodeLabels.put(label, node);
-      return node;
+      // Labels of this form are never used verbatim from the
+      // document (see RDFInternal.isPreservedBlankNodeName), so
+      // the label is final as soon as it's allocated
+      return RDFTerm.fromBlankNode("b" + this.curBlankNode);
+    }
+
+    private RDFTerm blankNodeForLabel(String label) {
+      if (RDFInternal.isPreservedBlankNodeName(label)) {
+        return RDFTerm.fromBlankNode(label);
+      }
+      RDFTerm term = this.bnodeLabels.get(label);
+      if (term == null) {
+        term = this.AllocateBlankNode();
+        this.bnodeLabels.put(label, term);
+      }
+      return term;
     }
 
     private void emitRDFTriple(
   RDFTerm subj,
   RDFTerm pred,
   RDFTerm obj,
-  Set<RDFTriple> triples) {
-      RDFTriple triple = new RDFTriple(subj, pred, obj);
-      triples.Add(triple);
+  ITripleSink sink) {
+      sink.handleTriple(
+  this.intern(subj),
+  this.intern(pred),
+  this.intern(obj));
     }
 
     private void emitRDFTriple(
   RDFTerm subj,
   RDFTerm pred,
   TurtleObject obj,
-  Set<RDFTriple> triples) {
+  ITripleSink sink) {
       if (obj.getKind() == TurtleObject.SIMPLE) {
-        this.emitRDFTriple(subj, pred, obj.getTerm(), triples);
+        this.emitRDFTriple(subj, pred, obj.getTerm(), sink);
       } else if (obj.getKind() == TurtleObject.PROPERTIES) {
         List<TurtleProperty> props = obj.getProperties();
         if (props.size() == 0) {
-          this.emitRDFTriple(subj, pred, this.AllocateBlankNode(), triples);
+          this.emitRDFTriple(subj, pred, this.AllocateBlankNode(), sink);
         } else {
           RDFTerm blank = this.AllocateBlankNode();
-          this.emitRDFTriple(subj, pred, blank, triples);
+          this.emitRDFTriple(subj, pred, blank, sink);
           for (int i = 0; i < props.size(); ++i) {
-            this.emitRDFTriple(blank, props.get(i).getPred(), props.get(i).getObj(), triples);
+            this.emitRDFTriple(blank, props.get(i).getPred(), props.get(i).getObj(), sink);
           }
         }
       } else if (obj.getKind() == TurtleObject.COLLECTION) {
         List<TurtleObject> objs = obj.getObjects();
         if (objs.size() == 0) {
-          this.emitRDFTriple(subj, pred, RDFTerm.NIL, triples);
+          this.emitRDFTriple(subj, pred, RDFTerm.NIL, sink);
         } else {
           RDFTerm curBlank = this.AllocateBlankNode();
           RDFTerm firstBlank = curBlank;
-          this.emitRDFTriple(curBlank, RDFTerm.FIRST, objs.get(0), triples);
+          this.emitRDFTriple(curBlank, RDFTerm.FIRST, objs.get(0), sink);
           for (int i = 1; i <= objs.size(); ++i) {
             if (i == objs.size()) {
-              this.emitRDFTriple(curBlank, RDFTerm.REST, RDFTerm.NIL, triples);
+              this.emitRDFTriple(curBlank, RDFTerm.REST, RDFTerm.NIL, sink);
             } else {
               RDFTerm nextBlank = this.AllocateBlankNode();
-              this.emitRDFTriple(curBlank, RDFTerm.REST, nextBlank, triples);
-              this.emitRDFTriple(nextBlank, RDFTerm.FIRST, objs.get(i), triples);
+              this.emitRDFTriple(curBlank, RDFTerm.REST, nextBlank, sink);
+              this.emitRDFTriple(nextBlank, RDFTerm.FIRST, objs.get(i), sink);
               curBlank = nextBlank;
             }
           }
-          this.emitRDFTriple(subj, pred, firstBlank, triples);
+          this.emitRDFTriple(subj, pred, firstBlank, sink);
         }
       }
     }
@@ -239,108 +496,111 @@ public final void setObj(TurtleObject value) {
   TurtleObject subj,
   RDFTerm pred,
   TurtleObject obj,
-  Set<RDFTriple> triples) {
+  ITripleSink sink) {
       if (subj.getKind() == TurtleObject.SIMPLE) {
-        this.emitRDFTriple(subj.getTerm(), pred, obj, triples);
+        this.emitRDFTriple(subj.getTerm(), pred, obj, sink);
       } else if (subj.getKind() == TurtleObject.PROPERTIES) {
         List<TurtleProperty> props = subj.getProperties();
         if (props.size() == 0) {
-          this.emitRDFTriple(this.AllocateBlankNode(), pred, obj, triples);
+          this.emitRDFTriple(this.AllocateBlankNode(), pred, obj, sink);
         } else {
           RDFTerm blank = this.AllocateBlankNode();
-          this.emitRDFTriple(blank, pred, obj, triples);
+          this.emitRDFTriple(blank, pred, obj, sink);
           for (int i = 0; i < props.size(); ++i) {
-            this.emitRDFTriple(blank, props.get(i).getPred(), props.get(i).getObj(), triples);
+            this.emitRDFTriple(blank, props.get(i).getPred(), props.get(i).getObj(), sink);
           }
         }
       } else if (subj.getKind() == TurtleObject.COLLECTION) {
         List<TurtleObject> objs = subj.getObjects();
         if (objs.size() == 0) {
-          this.emitRDFTriple(RDFTerm.NIL, pred, obj, triples);
+          this.emitRDFTriple(RDFTerm.NIL, pred, obj, sink);
         } else {
           RDFTerm curBlank = this.AllocateBlankNode();
           RDFTerm firstBlank = curBlank;
-          this.emitRDFTriple(curBlank, RDFTerm.FIRST, objs.get(0), triples);
+          this.emitRDFTriple(curBlank, RDFTerm.FIRST, objs.get(0), sink);
           for (int i = 1; i <= objs.size(); ++i) {
             if (i == objs.size()) {
-              this.emitRDFTriple(curBlank, RDFTerm.REST, RDFTerm.NIL, triples);
+              this.emitRDFTriple(curBlank, RDFTerm.REST, RDFTerm.NIL, sink);
             } else {
               RDFTerm nextBlank = this.AllocateBlankNode();
-              this.emitRDFTriple(curBlank, RDFTerm.REST, nextBlank, triples);
-              this.emitRDFTriple(nextBlank, RDFTerm.FIRST, objs.get(i), triples);
+              this.emitRDFTriple(curBlank, RDFTerm.REST, nextBlank, sink);
+              this.emitRDFTriple(nextBlank, RDFTerm.FIRST, objs.get(i), sink);
               curBlank = nextBlank;
             }
           }
-          this.emitRDFTriple(firstBlank, pred, obj, triples);
+          this.emitRDFTriple(firstBlank, pred, obj, sink);
         }
       }
     }
 
-    private RDFTerm finishStringLiteral(String str) {
-      int mark = this.input.setHardMark();
-      int ch = this.input.ReadChar();
-      if (ch == '@') {
-        return RDFTerm.fromLangString(str, this.readLanguageTag());
-      } else if (ch == '^' && this.input.ReadChar() == '^') {
-        ch = this.input.ReadChar();
-        if (ch == '<') {
-          return RDFTerm.fromTypedString(str, this.readIriReference());
-        } else if (ch == ':') { // prefixed name with current prefix
-          String scope = this.namespaces.get("");
-          if (scope == null) {
-            throw new ParserException();
-          }
+    /**
+     * Gets the table of canonical terms this parser uses for the IRIs, data
+     * types, and language tags it reads.
+     * @return The term table, or null if terms are not interned.
+     */
+    public RDFTermTable getTermTable() {
+      return this.termTable;
+    }
+
+    /**
+     * Sets the table of canonical terms this parser uses for the IRIs, data
+     * types, and language tags it reads. By default, each parser has its
+     * own table; parsers reading similar documents can share one.
+     * @param table A term table, or null to not intern terms. Without a
+     * table, IRIs read as slices of the input stay unconverted until
+     * their values are requested.
+     */
+    public void setTermTable(RDFTermTable table) {
+      this.termTable = table;
+    }
+
+    private RDFTerm intern(RDFTerm term) {
+      return (this.termTable == null) ? term : this.termTable.intern(term);
+    }
+
+    private String intern(String str) {
+      return (this.termTable == null) ? str : this.termTable.intern(str);
+    }
+
+    private RDFTerm finishStringLiteral(CharSequence str) {
+      int token = this.tokens.peek();
+      if (token == TurtleTokenizer.LANGTAG) {
+        this.tokens.next();
+        return RDFTerm.fromLangString(
+  str,
+  this.intern(this.tokens.getText()));
+      } else if (token == TurtleTokenizer.DOUBLE_CARET) {
+        this.tokens.next();
+        token = this.tokens.next();
+        if (token == TurtleTokenizer.IRIREF) {
           return RDFTerm.fromTypedString(
-     str,
-     scope + this.readOptionalLocalName());
-        } else if (this.isNameStartChar(ch)) {  // prefix
-          String prefix = this.readPrefix(ch);
-          String scope = this.namespaces.get(prefix);
-          if (scope == null) {
-            throw new ParserException();
-          }
+  str,
+  this.intern(this.resolveIri(this.tokens.getText())));
+        } else if (token == TurtleTokenizer.PNAME) {
           return RDFTerm.fromTypedString(
      str,
-     scope + this.readOptionalLocalName());
+     this.prefixedName().getValue());
         } else {
           throw new ParserException();
         }
       } else {
-        this.input.setMarkPosition(mark);
         return RDFTerm.fromTypedString(str);
       }
     }
 
-    private boolean isNameChar(int ch) {
-      return (ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9') ||
-          (ch >= 'A' && ch <= 'Z') || ch == '_' || ch == '-' ||
-          ch == 0xb7 || (ch >= 0xc0 && ch <= 0xd6) ||
-          (ch >= 0xd8 && ch <= 0xf6) || (ch >= 0xf8 && ch <= 0x37d) ||
-          (ch >= 0x37f && ch <= 0x1fff) || (ch >= 0x200c && ch <= 0x200d) ||
-          ch == 0x203f || ch == 0x2040 || (ch >= 0x2070 && ch <= 0x218f) ||
-          (ch >= 0x2c00 && ch <= 0x2fef) || (ch >= 0x3001 && ch <= 0xd7ff) ||
-          (ch >= 0xf900 && ch <= 0xfdcf) || (ch >= 0xfdf0 && ch <= 0xfffd) ||
-          (ch >= 0x10000 && ch <= 0xeffff);
+    static boolean isNameChar(int ch) {
+      return (ch < 0x10000) ? (ch >= 0 &&
+          (NameChars[ch >> 6] & (1L << ch)) != 0) : (ch <= 0xeffff);
     }
 
-    private boolean isNameStartChar(int ch) {
-      return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') ||
-          (ch >= 0xc0 && ch <= 0xd6) || (ch >= 0xd8 && ch <= 0xf6) ||
-          (ch >= 0xf8 && ch <= 0x2ff) || (ch >= 0x370 && ch <= 0x37d) ||
-          (ch >= 0x37f && ch <= 0x1fff) || (ch >= 0x200c && ch <= 0x200d) ||
-          (ch >= 0x2070 && ch <= 0x218f) || (ch >= 0x2c00 && ch <= 0x2fef) ||
-          (ch >= 0x3001 && ch <= 0xd7ff) || (ch >= 0xf900 && ch <= 0xfdcf) ||
-          (ch >= 0xfdf0 && ch <= 0xfffd) || (ch >= 0x10000 && ch <= 0xeffff);
+    static boolean isNameStartChar(int ch) {
+      return (ch < 0x10000) ? (ch >= 0 &&
+          (NameStartChars[ch >> 6] & (1L << ch)) != 0) : (ch <= 0xeffff);
     }
 
-    private boolean isNameStartCharU(int ch) {
-      return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch ==
-          '_' || (ch >= 0xc0 && ch <= 0xd6) || (ch >= 0xd8 && ch <= 0xf6) ||
-            (ch >= 0xf8 && ch <= 0x2ff) || (ch >= 0x370 && ch <= 0x37d) ||
-            (ch >= 0x37f && ch <= 0x1fff) || (ch >= 0x200c && ch <= 0x200d) ||
-            (ch >= 0x2070 && ch <= 0x218f) || (ch >= 0x2c00 && ch <= 0x2fef) ||
-            (ch >= 0x3001 && ch <= 0xd7ff) || (ch >= 0xf900 && ch <= 0xfdcf) ||
-            (ch >= 0xfdf0 && ch <= 0xfffd) || (ch >= 0x10000 && ch <= 0xeffff);
+    static boolean isNameStartCharU(int ch) {
+      return (ch < 0x10000) ? (ch >= 0 &&
+          (NameStartCharsU[ch >> 6] & (1L << ch)) != 0) : (ch <= 0xeffff);
     }
 
     /**
@@ -349,132 +609,114 @@ public final void setObj(TurtleObject value) {
      */
     public Set<RDFTriple> Parse() {
       Set<RDFTriple> triples = new HashSet<RDFTriple>();
-      while (true) {
-        this.skipWhitespace();
-        int mark = this.input.setHardMark();
-        int ch = this.input.ReadChar();
-        if (ch < 0) {
-          RDFInternal.replaceBlankNodes(triples, this.bnodeLabels);
-          return triples;
-        }
-        if (ch == '@') {
-          ch = this.input.ReadChar();
-          if (ch == 'p' && this.input.ReadChar() == 'r' &&
-            this.input.ReadChar() == 'e' &&
-              this.input.ReadChar() == 'f' && this.input.ReadChar() == 'i' &&
-              this.input.ReadChar() == 'x' && this.skipWhitespace()) {
-            this.readPrefixStatement(false);
-            continue;
-          } else if (ch == 'b' && this.input.ReadChar() == 'a' &&
-            this.input.ReadChar() == 's' &&
-                    this.input.ReadChar() == 'e' && this.skipWhitespace()) {
-            this.readBase(false);
-            continue;
-          } else {
-            throw new ParserException();
-          }
-        } else if (ch == 'b' || ch == 'B') {
-          int c2 = 0;
-          if (((c2 = this.input.ReadChar()) == 'A' || c2 == 'a') &&
-              ((c2 = this.input.ReadChar()) == 'S' || c2 == 's') &&
-           ((c2 = this.input.ReadChar()) == 'E' || c2 == 'e') &&
-                this.skipWhitespace()) {
-            this.readBase(true);
-            continue;
-          } else {
-            this.input.setMarkPosition(mark);
-          }
-        } else if (ch == 'p' || ch == 'P') {
-          int c2 = 0;
-          if (((c2 = this.input.ReadChar()) == 'R' || c2 == 'r') &&
-              ((c2 = this.input.ReadChar()) == 'E' || c2 == 'e') &&
-              ((c2 = this.input.ReadChar()) == 'F' || c2 == 'f') &&
-              ((c2 = this.input.ReadChar()) == 'I' || c2 == 'i') &&
-           ((c2 = this.input.ReadChar()) == 'X' || c2 == 'x') &&
-                this.skipWhitespace()) {
-            this.readPrefixStatement(true);
-            continue;
-          } else {
-            this.input.setMarkPosition(mark);
-          }
-        } else {
-          this.input.setMarkPosition(mark);
-        }
-        this.readTriples(triples);
+      this.Parse(new TripleCollector(triples));
+      return triples;
+    }
+
+    /**
+     * Parses the input into a list of triples in document order. Unlike {@code
+     * Parse()}, duplicate triples are kept, which avoids hashing every
+     * triple and is useful when the input is known to be free of
+     * duplicates or is deduplicated later.
+     * @return A list of the triples in the input.
+     */
+    public List<RDFTriple> ParseList() {
+      List<RDFTriple> triples = new ArrayList<RDFTriple>();
+      this.Parse(new TripleCollector(triples));
+      return triples;
+    }
+
+    /**
+     * Parses the input and passes each triple to the given handler as soon as
+     * it is read. Blank node labels are final when the handler receives
+     * them: labels in the document are kept where possible, and other blank
+     * nodes get labels that don't collide with them.
+     * @param handler The handler that receives the triples.
+     * @throws java.lang.NullPointerException The parameter {@code handler} is
+     * null.
+     */
+    public void Parse(ITripleHandler handler) {
+      ITripleSink sink = new TripleHandlerSink(handler);
+      while (this.parseStatement(sink)) {
       }
     }
 
-    private void readBase(boolean sparql) {
-      if (this.input.ReadChar() != '<') {
-        throw new ParserException();
+    /**
+     * Parses the input and passes each triple to the given handler as the IDs
+     * its terms have in the given dictionary, adding terms to the
+     * dictionary as needed. No RDFTriple objects are created.
+     * @param dictionary The dictionary that assigns IDs to terms.
+     * @param handler The handler that receives the triples.
+     * @throws java.lang.NullPointerException The parameter {@code dictionary}
+     * or {@code handler} is null.
+     */
+    public void Parse(RDFTermDictionary dictionary, ITripleIdHandler handler) {
+      ITripleSink sink = new TripleIdSink(dictionary, handler);
+      while (this.parseStatement(sink)) {
       }
-      this.baseURI = this.readIriReference();
-      if (!sparql) {
-        this.skipWhitespace();
-        if (this.input.ReadChar() != '.') {
+    }
+
+    /**
+     * Parses the next statement in the input, which is either a directive or a
+     * group of triples, and passes the triples it contains to the given
+     * handler. Reading stops at the end of that statement.
+     * @param handler The handler that receives the statement's triples.
+     * @return {@code true} if a statement was read; {@code false} if the end
+     * of the input was reached.
+     * @throws java.lang.NullPointerException The parameter {@code handler} is
+     * null.
+     */
+    public boolean ParseStatement(ITripleHandler handler) {
+      return this.parseStatement(new TripleHandlerSink(handler));
+    }
+
+    private boolean parseStatement(ITripleSink sink) {
+      int token = this.tokens.peek();
+      if (token == TurtleTokenizer.EOF) {
+        return false;
+      }
+      if (token == TurtleTokenizer.LANGTAG) {
+        this.tokens.next();
+        String directive = this.tokens.getText();
+        if (directive.equals("prefix")) {
+          this.readPrefixStatement(false);
+        } else if (directive.equals("base")) {
+          this.readBase(false);
+        } else {
           throw new ParserException();
         }
-      } else {
-        this.skipWhitespace();
+        return true;
+      } else if (token == TurtleTokenizer.KEYWORD) {
+        String keyword = this.tokens.getText();
+        if (keyword == TurtleTokenizer.KeywordPrefix) {
+          this.tokens.next();
+          this.readPrefixStatement(true);
+          return true;
+        } else if (keyword == TurtleTokenizer.KeywordBase) {
+          this.tokens.next();
+          this.readBase(true);
+          return true;
+        }
       }
+      this.readTriples(sink);
+      return true;
+    }
+
+    private void setBaseURI(String baseURI) {
+      this.baseURI = baseURI;
+      this.resolvedIRIs.clear();
+      this.baseIRI = URIUtility.parseIRI(
+  baseURI,
+  URIUtility.ParseMode.IRIStrict);
     }
 
-    private String readBlankNodeLabel() {
-      StringBuilder ilist = new StringBuilder();
-      int startChar = this.input.ReadChar();
-      if (!this.isNameStartCharU(startChar) &&
-           (startChar < '0' || startChar > '9')) {
+    private void readBase(boolean sparql) {
+      if (this.tokens.next() != TurtleTokenizer.IRIREF) {
         throw new ParserException();
       }
-      if (startChar <= 0xffff) {
-        {
-          ilist.append((char)startChar);
-        }
-      } else if (startChar <= 0x10ffff) {
-        ilist.append((char)((((startChar - 0x10000) >> 10) & 0x3ff) + 0xd800));
-        ilist.append((char)(((startChar - 0x10000) & 0x3ff) + 0xdc00));
-      }
-      boolean lastIsPeriod = false;
-      this.input.setSoftMark();
-      while (true) {
-        int ch = this.input.ReadChar();
-        if (ch == '.') {
-          int position = this.input.getMarkPosition();
-          int ch2 = this.input.ReadChar();
-          if (!this.isNameChar(ch2) && ch2 != ':' && ch2 != '.') {
-            this.input.setMarkPosition(position - 1);
-            return ilist.toString();
-          } else {
-            this.input.moveBack(1);
-          }
-          if (ch <= 0xffff) {
-            {
-              ilist.append((char)ch);
-            }
-          } else if (ch <= 0x10ffff) {
-            ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          lastIsPeriod = true;
-        } else if (this.isNameChar(ch)) {
-          if (ch <= 0xffff) {
-            {
-              ilist.append((char)ch);
-            }
-          } else if (ch <= 0x10ffff) {
-            ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          lastIsPeriod = false;
-        } else {
-          if (ch >= 0) {
-            this.input.moveBack(1);
-          }
-          if (lastIsPeriod) {
-            throw new ParserException();
-          }
-          return ilist.toString();
-        }
+      this.setBaseURI(this.resolveIri(this.tokens.getText()));
+      if (!sparql && this.tokens.next() != TurtleTokenizer.DOT) {
+        throw new ParserException();
       }
     }
 
@@ -482,22 +724,11 @@ public final void setObj(TurtleObject value) {
       TurtleObject obj = TurtleObject.newPropertyList();
       boolean havePredObject = false;
       while (true) {
-        this.skipWhitespace();
-        int ch;
         if (havePredObject) {
           boolean haveSemicolon = false;
-          while (true) {
-            this.input.setSoftMark();
-            ch = this.input.ReadChar();
-            if (ch == ';') {
-              this.skipWhitespace();
-              haveSemicolon = true;
-            } else {
-              if (ch >= 0) {
-                this.input.moveBack(1);
-              }
-              break;
-            }
+          while (this.tokens.peek() == TurtleTokenizer.SEMICOLON) {
+            this.tokens.next();
+            haveSemicolon = true;
           }
           if (!haveSemicolon) {
             break;
@@ -510,7 +741,7 @@ public final void setObj(TurtleObject value) {
         havePredObject = true;
         this.readObjectListToProperties(pred, obj);
       }
-      if (this.input.ReadChar() != ']') {
+      if (this.tokens.next() != TurtleTokenizer.CLOSE_BRACKET) {
         throw new ParserException();
       }
       return obj;
@@ -518,554 +749,159 @@ public final void setObj(TurtleObject value) {
 
     private TurtleObject readCollection() {
       TurtleObject obj = TurtleObject.newCollection();
-      while (true) {
-        this.skipWhitespace();
-        this.input.setHardMark();
-        int ch = this.input.ReadChar();
-        if (ch == ')') {
-          break;
-        } else {
-          if (ch >= 0) {
-            this.input.moveBack(1);
-          }
-          TurtleObject subobj = this.readObject(true);
-          obj.getObjects().Add(subobj);
-        }
-      }
-      return obj;
-    }
-
-    private String readIriReference() {
-      StringBuilder ilist = new StringBuilder();
-      while (true) {
-        int ch = this.input.ReadChar();
-        if (ch < 0) {
+      while (this.tokens.peek() != TurtleTokenizer.CLOSE_PAREN) {
+        TurtleObject subobj = this.readObject(true);
+        if (subobj == null) {
           throw new ParserException();
         }
-        if (ch == '>') {
-          String iriref = ilist.toString();
-          // Resolve the IRI reference relative
-          // to the _base URI
-          iriref = URIUtility.relativeResolve(iriref, this.baseURI);
-          if (iriref == null) {
-            throw new ParserException();
-          }
-          return iriref;
-        } else if (ch == '\\') {
-          ch = this.readUnicodeEscape(false);
-        }
-        if (ch <= 0x20 || ((ch & 0x7f) == ch &&
-                "><\\\"{}|^`".indexOf((char)ch) >= 0)) {
-          throw new ParserException();
-        }
-        if (ch <= 0xffff) {
-          {
-            ilist.append((char)ch);
-          }
-        } else if (ch <= 0x10ffff) {
-          ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-          ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-        }
+        obj.getObjects().Add(subobj);
       }
+      this.tokens.next();
+      return obj;
     }
 
-    private String readLanguageTag() {
-      StringBuilder ilist = new StringBuilder();
-      boolean hyphen = false;
-      boolean haveHyphen = false;
-      boolean haveString = false;
-      this.input.setSoftMark();
-      while (true) {
-        int c2 = this.input.ReadChar();
-        if (c2 >= 'A' && c2 <= 'Z') {
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          haveString = true;
-          hyphen = false;
-        } else if (c2 >= 'a' && c2 <= 'z') {
-              ilist.append((char)c2);
-          haveString = true;
-          hyphen = false;
-        } else if (haveHyphen && (c2 >= '0' && c2 <= '9')) {
-              ilist.append((char)c2);
-          haveString = true;
-          hyphen = false;
-        } else if (c2 == '-') {
-          if (hyphen || !haveString) {
-            throw new ParserException();
-          }
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          hyphen = true;
-          haveHyphen = true;
-          haveString = true;
-        } else {
-          if (c2 >= 0) {
-            this.input.moveBack(1);
-          }
-          if (hyphen || !haveString) {
-            throw new ParserException();
-          }
-          return ilist.toString();
-        }
+    // Resolves an IRI reference read from the document
+    // against the base URI
+    private String resolveIri(String iriref) {
+      String resolved = this.resolvedIRIs.get(iriref);
+      if (resolved != null) {
+        return resolved;
       }
-    }
-
-    // Reads a number literal starting with
-    // the given character (assumes it's plus, minus,
-    // a dot, or a digit)
-    private RDFTerm readNumberLiteral(int ch) {
-      // buffer to hold the literal
-      StringBuilder ilist = new StringBuilder();
-      // include the first character
-      if (ch <= 0xffff) {
-        {
-          ilist.append((char)ch);
-        }
-      } else if (ch <= 0x10ffff) {
-        ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-        ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
+      resolved = (this.baseIRI == null) ?
+        URIUtility.relativeResolve(iriref, this.baseURI) :
+        this.baseIRI.resolve(iriref);
+      if (resolved == null) {
+        throw new ParserException();
       }
-      boolean haveDigits = ch >= '0' && ch <= '9';
-      boolean haveDot = ch == '.';
-      this.input.setHardMark();
-      while (true) {
-        int ch1 = this.input.ReadChar();
-        if (haveDigits && (ch1 == 'e' || ch1 == 'E')) {
-          // Parse exponent
-          if (ch1 <= 0xffff) {
-            {
-              ilist.append((char)ch1);
-            }
-          } else if (ch1 <= 0x10ffff) {
-            ilist.append((char)((((ch1 - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((ch1 - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          ch1 = this.input.ReadChar();
-          haveDigits = false;
-          if (ch1 == '+' || ch1 == '-' || (ch1 >= '0' && ch1 <= '9')) {
-            if (ch1 <= 0xffff) {
-              {
-                ilist.append((char)ch1);
-              }
-            } else if (ch1 <= 0x10ffff) {
-              ilist.append((char)((((ch1 - 0x10000) >> 10) & 0x3ff) + 0xd800));
-              ilist.append((char)(((ch1 - 0x10000) & 0x3ff) + 0xdc00));
-            }
-            if (ch1 >= '0' && ch1 <= '9') {
-              haveDigits = true;
-            }
-          } else {
-            throw new ParserException();
-          }
-          this.input.setHardMark();
-          while (true) {
-            ch1 = this.input.ReadChar();
-            if (ch1 >= '0' && ch1 <= '9') {
-              haveDigits = true;
-              if (ch1 <= 0xffff) {
-                {
-                  ilist.append((char)ch1);
-                }
-              } else if (ch1 <= 0x10ffff) {
-                ilist.append((char)((((ch1 - 0x10000) >> 10) & 0x3ff) +
-                    0xd800));
-                ilist.append((char)(((ch1 - 0x10000) & 0x3ff) + 0xdc00));
-              }
-            } else {
-              if (ch1 >= 0) {
-                this.input.moveBack(1);
-              }
-              if (!haveDigits) {
-                throw new ParserException();
-              }
-              return RDFTerm.fromTypedString(
-  ilist.toString(),
-  "http://www.w3.org/2001/XMLSchema#double");
-            }
-          }
-        } else if (ch1 >= '0' && ch1 <= '9') {
-          haveDigits = true;
-          if (ch1 <= 0xffff) {
-            {
-              ilist.append((char)ch1);
-            }
-          } else if (ch1 <= 0x10ffff) {
-            ilist.append((char)((((ch1 - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((ch1 - 0x10000) & 0x3ff) + 0xdc00));
-          }
-        } else if (!haveDot && ch1 == '.') {
-          haveDot = true;
-          // check for non-digit and non-E
-          int markpos = this.input.getMarkPosition();
-          int ch2 = this.input.ReadChar();
-          if (ch2 != 'e' && ch2 != 'E' && (ch2 < '0' || ch2 > '9')) {
-            // move to just at the period and return
-            this.input.setMarkPosition(markpos - 1);
-            if (!haveDigits) {
-              throw new ParserException();
-            }
-            String ns = haveDot ? "http://www.w3.org/2001/XMLSchema#decimal" :
-                "http://www.w3.org/2001/XMLSchema#integer";
-            return RDFTerm.fromTypedString(
-  ilist.toString(),
-  ns);
-          } else {
-            this.input.moveBack(1);
-          }
-          if (ch1 <= 0xffff) {
-            {
-              ilist.append((char)ch1);
-            }
-          } else if (ch1 <= 0x10ffff) {
-            ilist.append((char)((((ch1 - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((ch1 - 0x10000) & 0x3ff) + 0xdc00));
-          }
-        } else {  // no more digits
-          if (ch1 >= 0) {
-            this.input.moveBack(1);
-          }
-          if (!haveDigits) {
-            throw new ParserException();
-          }
-          String ns = haveDot ? "http://www.w3.org/2001/XMLSchema#decimal" :
-              "http://www.w3.org/2001/XMLSchema#integer";
-          return RDFTerm.fromTypedString(
-  ilist.toString(),
-  ns);
-        }
+      if (resolved != iriref) {
+        // Only relative references are remembered; absolute
+        // ones resolve to themselves quickly
+        this.resolvedIRIs.put(iriref, resolved);
       }
+      return resolved;
     }
 
+    // Reads an object, or a subject if acceptLiteral is false.
+    // Returns null, without consuming the next token, if that
+    // token doesn't start one.
     private TurtleObject readObject(boolean acceptLiteral) {
-      int ch = this.input.ReadChar();
-      int mark = this.input.setSoftMark();
-      if (ch < 0) {
-        throw new ParserException();
-      } else if (ch == '<') {
-        return TurtleObject.fromTerm(
-  RDFTerm.fromIRI(this.readIriReference()));
-      } else if (acceptLiteral && (ch == '-' || ch == '+' || ch == '.' ||
-        (ch >= '0' && ch <= '9'))) {
-        return TurtleObject.fromTerm(this.readNumberLiteral(ch));
-      } else if (acceptLiteral && (ch == '\'' || ch == '\"')) {
-        // start of quote literal
-        String str = this.readStringLiteral(ch);
-        return TurtleObject.fromTerm(this.finishStringLiteral(str));
-      } else if (ch == '_') { // Blank Node Label
-        if (this.input.ReadChar() != ':') {
-          throw new ParserException();
-        }
-        String label = this.readBlankNodeLabel();
-        RDFTerm term = this.bnodeLabels.containsKey(label) ?
-                    this.bnodeLabels.get(label) : null;
-        if (term == null) {
-          term = RDFTerm.fromBlankNode(label);
-          this.bnodeLabels.put(label, term);
-        }
-        return TurtleObject.fromTerm(term);
-      } else if (ch == '[') {
-        return this.readBlankNodePropertyList();
-      } else if (ch == '(') {
-        return this.readCollection();
-      } else if (ch == ':') { // prefixed name with current prefix
-        String scope = this.namespaces.get("");
-        if (scope == null) {
-          throw new ParserException();
-        }
-        return TurtleObject.fromTerm(
-            RDFTerm.fromIRI(scope + this.readOptionalLocalName()));
-      } else if (this.isNameStartChar(ch)) {  // prefix
-        if (acceptLiteral && (ch == 't' || ch == 'f')) {
-          mark = this.input.setHardMark();
-          if (ch == 't' && this.input.ReadChar() == 'r' &&
-            this.input.ReadChar() == 'u' &&
-              this.input.ReadChar() == 'e' && this.isBooleanLiteralEnd()) {
+      switch (this.tokens.peek()) {
+        case TurtleTokenizer.IRIREF:
+          this.tokens.next();
+          return TurtleObject.fromTerm(
+  RDFTerm.fromIRI(this.resolveIri(this.tokens.getText())));
+        case TurtleTokenizer.PNAME:
+          this.tokens.next();
+          return TurtleObject.fromTerm(this.prefixedName());
+        case TurtleTokenizer.BLANK_NODE_LABEL:
+          this.tokens.next();
+          return TurtleObject.fromTerm(
+  this.blankNodeForLabel(this.tokens.getText()));
+        case TurtleTokenizer.OPEN_BRACKET:
+          this.tokens.next();
+          return this.readBlankNodePropertyList();
+        case TurtleTokenizer.OPEN_PAREN:
+          this.tokens.next();
+          return this.readCollection();
+        case TurtleTokenizer.NUMBER:
+          if (!acceptLiteral) {
+            return null;
+          }
+          this.tokens.next();
+          return TurtleObject.fromTerm(
+  RDFTerm.fromTypedString(
+  this.tokens.getText(),
+  this.tokens.getDatatype()));
+        case TurtleTokenizer.STRING: {
+          if (!acceptLiteral) {
+            return null;
+          }
+          this.tokens.next();
+          CharSequence str = this.tokens.getValue();
+          return TurtleObject.fromTerm(this.finishStringLiteral(str));
+        }
+        case TurtleTokenizer.KEYWORD: {
+          String keyword = this.tokens.getText();
+          if (acceptLiteral && keyword == TurtleTokenizer.KeywordTrue) {
+            this.tokens.next();
             return TurtleObject.fromTerm(RDFTerm.TRUE);
-          } else if (ch == 'f' && this.input.ReadChar() == 'a' &&
-            this.input.ReadChar() == 'l' && this.input.ReadChar() == 's' &&
-                this.input.ReadChar() == 'e' && this.isBooleanLiteralEnd()) {
+          } else if (acceptLiteral && keyword == TurtleTokenizer.KeywordFalse) {
+            this.tokens.next();
             return TurtleObject.fromTerm(RDFTerm.FALSE);
-          } else {
-            this.input.setMarkPosition(mark);
           }
+          return null;
         }
-        String prefix = this.readPrefix(ch);
-        String scope = this.namespaces.containsKey(prefix) ?
-                    this.namespaces.get(prefix) : null;
-        if (scope == null) {
-          throw new ParserException();
-        }
-        return TurtleObject.fromTerm(
-            RDFTerm.fromIRI(scope + this.readOptionalLocalName()));
-      } else {
-        this.input.setMarkPosition(mark);
-        return null;
+        default:
+          return null;
       }
     }
 
-    private void readObjectList(Set<RDFTriple> triples) {
-      boolean haveObject = false;
+    private void readObjectList(ITripleSink sink) {
       while (true) {
-        this.input.setSoftMark();
-        int ch;
-        if (haveObject) {
-          ch = this.input.ReadChar();
-          if (ch != ',') {
-            if (ch >= 0) {
-              this.input.moveBack(1);
-            }
-            break;
-          }
-          this.skipWhitespace();
-        }
-        // Read Object
         TurtleObject obj = this.readObject(true);
         if (obj == null) {
-          if (!haveObject) {
-            throw new ParserException();
-          } else {
-            return;
-          }
+          throw new ParserException();
         }
-        haveObject = true;
-        this.emitRDFTriple(this.curSubject, this.curPredicate, obj, triples);
-        this.skipWhitespace();
-      }
-      if (!haveObject) {
-        throw new ParserException();
+        this.emitRDFTriple(this.curSubject, this.curPredicate, obj, sink);
+        if (this.tokens.peek() != TurtleTokenizer.COMMA) {
+          return;
+        }
+        this.tokens.next();
       }
-      return;
     }
 
     private void readObjectListToProperties(
         RDFTerm predicate,
         TurtleObject propertyList) {
-      boolean haveObject = false;
       while (true) {
-        this.input.setSoftMark();
-        int ch;
-        if (haveObject) {
-          ch = this.input.ReadChar();
-          if (ch != ',') {
-            if (ch >= 0) {
-              this.input.moveBack(1);
-            }
-            break;
-          }
-          this.skipWhitespace();
-        }
-        // Read Object
         TurtleObject obj = this.readObject(true);
         if (obj == null) {
-          if (!haveObject) {
-            throw new ParserException();
-          } else {
-            return;
-          }
+          throw new ParserException();
         }
         TurtleProperty prop = new TurtleProperty();
         prop.setPred(predicate);
         prop.setObj(obj);
         propertyList.getProperties().Add(prop);
-        this.skipWhitespace();
-        haveObject = true;
-      }
-      if (!haveObject) {
-        throw new ParserException();
-      }
-      return;
-    }
-
-    private String readOptionalLocalName() {
-      StringBuilder ilist = new StringBuilder();
-      boolean lastIsPeriod = false;
-      boolean first = true;
-      this.input.setSoftMark();
-      while (true) {
-        int ch = this.input.ReadChar();
-        if (ch < 0) {
-          return ilist.toString();
-        }
-        if (ch == '%') {
-          int a = this.input.ReadChar();
-          int b = this.input.ReadChar();
-          if (this.toHexValue(a) < 0 ||
-              this.toHexValue(b) < 0) {
-            throw new ParserException();
-          }
-          if (ch <= 0xffff) {
-            {
-              ilist.append((char)ch);
-            }
-          } else if (ch <= 0x10ffff) {
-            ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          if (a <= 0xffff) {
-            {
-              ilist.append((char)a);
-            }
-          } else if (a <= 0x10ffff) {
-            ilist.append((char)((((a - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((a - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          if (b <= 0xffff) {
-            {
-              ilist.append((char)b);
-            }
-          } else if (b <= 0x10ffff) {
-            ilist.append((char)((((b - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((b - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          lastIsPeriod = false;
-          first = false;
-          continue;
-        } else if (ch == '\\') {
-          ch = this.input.ReadChar();
-          if ((ch & 0x7f) == ch &&
-                  "_~.-!$&'()*+,;=/?#@%".indexOf((char)ch) >= 0) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-            }
-          } else {
-            throw new ParserException();
-          }
-          lastIsPeriod = false;
-          first = false;
-          continue;
-        }
-        if (first) {
-          if (!this.isNameStartCharU(ch) && ch != ':' &&
-               (ch < '0' || ch > '9')) {
-            this.input.moveBack(1);
-            return ilist.toString();
-          }
-        } else {
-          if (!this.isNameChar(ch) && ch != ':' && ch != '.') {
-            this.input.moveBack(1);
-            if (lastIsPeriod) {
-              throw new ParserException();
-            }
-            return ilist.toString();
-          }
-        }
-        lastIsPeriod = ch == '.';
-        if (lastIsPeriod && !first) {
-          // if a period was just read, check
-          // if the next character is valid before
-          // adding the period.
-          int position = this.input.getMarkPosition();
-          int ch2 = this.input.ReadChar();
-          if (!this.isNameChar(ch2) && ch2 != ':' && ch2 != '.') {
-            this.input.setMarkPosition(position - 1);
-            return ilist.toString();
-          } else {
-            this.input.moveBack(1);
-          }
-        }
-        first = false;
-        if (ch <= 0xffff) {
-          {
-            ilist.append((char)ch);
-          }
-        } else if (ch <= 0x10ffff) {
-          ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-          ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
+        if (this.tokens.peek() != TurtleTokenizer.COMMA) {
+          return;
         }
+        this.tokens.next();
       }
     }
 
+    // Reads a predicate, or returns null, without consuming the
+    // next token, if that token doesn't start one
     private RDFTerm readPredicate() {
-      int mark = this.input.setHardMark();
-      int ch = this.input.ReadChar();
-      RDFTerm predicate = null;
-      if (ch == 'a') {
-        mark = this.input.setHardMark();
-        if (this.skipWhitespace()) {
-          return RDFTerm.A;
-        } else {
-          this.input.setMarkPosition(mark);
-          String prefix = this.readPrefix('a');
-          String scope = this.namespaces.get(prefix);
-          if (scope == null) {
-            throw new ParserException();
-          }
-          predicate = RDFTerm.fromIRI(scope + this.readOptionalLocalName());
-          this.skipWhitespace();
-          return predicate;
-        }
-      } else if (ch == '<') {
-        predicate = RDFTerm.fromIRI(this.readIriReference());
-        this.skipWhitespace();
-        return predicate;
-      } else if (ch == ':') { // prefixed name with current prefix
-        String scope = this.namespaces.get("");
-        if (scope == null) {
-          throw new ParserException();
-        }
-        predicate = RDFTerm.fromIRI(scope + this.readOptionalLocalName());
-        this.skipWhitespace();
-        return predicate;
-      } else if (this.isNameStartChar(ch)) {  // prefix
-        String prefix = this.readPrefix(ch);
-        String scope = this.namespaces.get(prefix);
-        if (scope == null) {
-          throw new ParserException();
-        }
-        predicate = RDFTerm.fromIRI(scope + this.readOptionalLocalName());
-        this.skipWhitespace();
-        return predicate;
+      int token = this.tokens.peek();
+      if (token == TurtleTokenizer.IRIREF) {
+        this.tokens.next();
+        return RDFTerm.fromIRI(this.resolveIri(this.tokens.getText()));
+      } else if (token == TurtleTokenizer.PNAME) {
+        this.tokens.next();
+        return this.prefixedName();
+      } else if (token == TurtleTokenizer.KEYWORD &&
+          this.tokens.getText() == TurtleTokenizer.KeywordA) {
+        this.tokens.next();
+        return RDFTerm.A;
       } else {
-        this.input.setMarkPosition(mark);
         return null;
       }
     }
 
-    private void readPredicateObjectList(Set<RDFTriple> triples) {
+    private void readPredicateObjectList(ITripleSink sink) {
       boolean havePredObject = false;
       while (true) {
-        int ch;
-        this.skipWhitespace();
         if (havePredObject) {
           boolean haveSemicolon = false;
-          while (true) {
-            this.input.setSoftMark();
-            ch = this.input.ReadChar();
-            // System.out.println("nextchar %c",(char)ch);
-            if (ch == ';') {
-              this.skipWhitespace();
-              haveSemicolon = true;
-            } else {
-              if (ch >= 0) {
-                this.input.moveBack(1);
-              }
-              break;
-            }
+          while (this.tokens.peek() == TurtleTokenizer.SEMICOLON) {
+            this.tokens.next();
+            haveSemicolon = true;
           }
           if (!haveSemicolon) {
             break;
           }
         }
         this.curPredicate = this.readPredicate();
-        // System.out.println("predobjlist %s",curPredicate);
         if (this.curPredicate == null) {
           if (!havePredObject) {
             throw new ParserException();
@@ -1075,312 +911,66 @@ public final void setObj(TurtleObject value) {
         }
         // Read _object
         havePredObject = true;
-        this.readObjectList(triples);
+        this.readObjectList(sink);
       }
-      if (!havePredObject) {
-        throw new ParserException();
-      }
-      return;
-    }
-
-    private boolean isBooleanLiteralEnd() {
-      if (this.skipWhitespace()) {
-        return true;
-      }
-      this.input.setSoftMark();
-      int ch = this.input.ReadChar();
-      if (ch < 0) {
-        return true;
-      }
-      this.input.moveBack(1);
-       return this.isNameChar(ch);
     }
 
-    private String readPrefix(int startChar) {
-      StringBuilder ilist = new StringBuilder();
-      boolean lastIsPeriod = false;
-      boolean first = true;
-      if (startChar >= 0) {
-        if (startChar <= 0xffff) {
-          {
-            ilist.append((char)startChar);
-          }
-        } else if (startChar <= 0x10ffff) {
-          ilist.append((char)((((startChar - 0x10000) >> 10) & 0x3ff) +
-              0xd800));
-          ilist.append((char)(((startChar - 0x10000) & 0x3ff) + 0xdc00));
-        }
-        first = false;
+    // Gets the IRI that the prefixed name just read stands for
+    private RDFTerm prefixedName() {
+      PrefixTrie.Node node = this.tokens.getPrefixNode();
+      String namespace = (node == null) ? null : node.getNamespace();
+      if (namespace == null) {
+        throw new ParserException();
       }
-      while (true) {
-        int ch = this.input.ReadChar();
-        if (ch < 0) {
-          throw new ParserException();
-        }
-        if (ch == ':') {
-          if (lastIsPeriod) {
-            throw new ParserException();
-          }
-          return ilist.toString();
-        } else if (first && !this.isNameStartChar(ch)) {
-          throw new ParserException();
-        } else if (ch != '.' && !this.isNameChar(ch)) {
-          throw new ParserException();
-        }
-        first = false;
-        if (ch <= 0xffff) {
-          {
-            ilist.append((char)ch);
-          }
-        } else if (ch <= 0x10ffff) {
-          ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-          ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-        }
-        lastIsPeriod = ch == '.';
+      String localName = this.tokens.getText();
+      RDFTerm term = node.getTerm(localName);
+      if (term == null) {
+        term = this.intern(RDFTerm.fromIRI(namespace, localName));
+        node.putTerm(localName, term);
       }
+      return term;
     }
 
     private void readPrefixStatement(boolean sparql) {
-      String prefix = this.readPrefix(-1);
-      this.skipWhitespace();
-      if (this.input.ReadChar() != '<') {
+      // The prefix is read as a prefixed name with an empty
+      // local name
+      if (this.tokens.next() != TurtleTokenizer.PNAME ||
+          this.tokens.getText().length() != 0) {
         throw new ParserException();
       }
-      String iri = this.readIriReference();
-      this.namespaces.put(prefix, iri);
-      if (!sparql) {
-        this.skipWhitespace();
-        if (this.input.ReadChar() != '.') {
-          throw new ParserException();
-        }
-      } else {
-        this.skipWhitespace();
+      String prefix = this.tokens.getPrefix();
+      if (this.tokens.next() != TurtleTokenizer.IRIREF) {
+        throw new ParserException();
       }
-    }
-
-    private String readStringLiteral(int ch) {
-      StringBuilder ilist = new StringBuilder();
-      boolean first = true;
-      boolean longQuote = false;
-      int quotecount = 0;
-      while (true) {
-        int c2 = this.input.ReadChar();
-        if (first && c2 == ch) {
-          this.input.setHardMark();
-          c2 = this.input.ReadChar();
-          if (c2 != ch) {
-            if (c2 >= 0) {
-              this.input.moveBack(1);
-            }
-            return "";
-          }
-          longQuote = true;
-          c2 = this.input.ReadChar();
-        }
-        first = false;
-        if (!longQuote && (c2 == 0x0a || c2 == 0x0d)) {
-          throw new ParserException();
-        } else if (c2 == '\\') {
-          c2 = this.readUnicodeEscape(true);
-          if (quotecount >= 2) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-            }
-          }
-          if (quotecount >= 1) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-            }
-          }
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          quotecount = 0;
-        } else if (c2 == ch) {
-          if (!longQuote) {
-            return ilist.toString();
-          }
-          ++quotecount;
-          if (quotecount >= 3) {
-            return ilist.toString();
-          }
-        } else {
-          if (c2 < 0) {
-            throw new ParserException();
-          }
-          if (quotecount >= 2) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-            }
-          }
-          if (quotecount >= 1) {
-            if (ch <= 0xffff) {
-              {
-                ilist.append((char)ch);
-              }
-            } else if (ch <= 0x10ffff) {
-              ilist.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
-              ilist.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
-            }
-          }
-          if (c2 <= 0xffff) {
-            {
-              ilist.append((char)c2);
-            }
-          } else if (c2 <= 0x10ffff) {
-            ilist.append((char)((((c2 - 0x10000) >> 10) & 0x3ff) + 0xd800));
-            ilist.append((char)(((c2 - 0x10000) & 0x3ff) + 0xdc00));
-          }
-          quotecount = 0;
-        }
+      String iri = this.resolveIri(this.tokens.getText());
+      this.namespaces.put(prefix, iri);
+      this.prefixes.put(prefix, iri);
+      if (!sparql && this.tokens.next() != TurtleTokenizer.DOT) {
+        throw new ParserException();
       }
     }
 
-    private void readTriples(Set<RDFTriple> triples) {
-      int mark = this.input.setHardMark();
-      int ch = this.input.ReadChar();
-      if (ch < 0) {
-        return;
-      }
-      this.input.setMarkPosition(mark);
+    private void readTriples(ITripleSink sink) {
       TurtleObject subject = this.readObject(false);
       if (subject == null) {
         throw new ParserException();
       }
       this.curSubject = subject;
-      if (!(subject.getKind() == TurtleObject.PROPERTIES &&
-          subject.getProperties().size() > 0)) {
-        this.skipWhitespace();
-        this.readPredicateObjectList(triples);
-      } else {
-        this.skipWhitespace();
-        this.input.setHardMark();
-        ch = this.input.ReadChar();
-        if (ch == '.') {
-          // just a blank node property list;
-          // generate a blank node as the subject
-          RDFTerm blankNode = this.AllocateBlankNode();
-          for (Object prop : subject.getProperties()) {
-            this.emitRDFTriple(blankNode, prop.getPred(), prop.getObj(), triples);
-          }
-          return;
-        } else if (ch < 0) {
-          throw new ParserException();
-        }
-        this.input.moveBack(1);
-        this.readPredicateObjectList(triples);
-      }
-      this.skipWhitespace();
-      if (this.input.ReadChar() != '.') {
-        throw new ParserException();
-      }
-    }
-
-    private int readUnicodeEscape(boolean extended) {
-      int ch = this.input.ReadChar();
-      if (ch == 'U') {
-        if (this.input.ReadChar() != '0') {
-          throw new ParserException();
+      if (subject.getKind() == TurtleObject.PROPERTIES &&
+          subject.getProperties().size() > 0 &&
+          this.tokens.peek() == TurtleTokenizer.DOT) {
+        this.tokens.next();
+        // just a blank node property list;
+        // generate a blank node as the subject
+        RDFTerm blankNode = this.AllocateBlankNode();
+        for (TurtleProperty prop : subject.getProperties()) {
+          this.emitRDFTriple(blankNode, prop.getPred(), prop.getObj(), sink);
         }
-        if (this.input.ReadChar() != '0') {
-          throw new ParserException();
-        }
-        int a = this.toHexValue(this.input.ReadChar());
-        int b = this.toHexValue(this.input.ReadChar());
-        int c = this.toHexValue(this.input.ReadChar());
-        int d = this.toHexValue(this.input.ReadChar());
-        int e = this.toHexValue(this.input.ReadChar());
-        int f = this.toHexValue(this.input.ReadChar());
-        if (a < 0 || b < 0 || c < 0 || d < 0 || e < 0 || f < 0) {
-          throw new ParserException();
-        }
-        ch = (a << 20) | (b << 16) | (c << 12) | (d << 8) | (e << 4) | f;
-      } else if (ch == 'u') {
-        int a = this.toHexValue(this.input.ReadChar());
-        int b = this.toHexValue(this.input.ReadChar());
-        int c = this.toHexValue(this.input.ReadChar());
-        int d = this.toHexValue(this.input.ReadChar());
-        if (a < 0 || b < 0 || c < 0 || d < 0) {
-          throw new ParserException();
-        }
-        ch = (a << 12) | (b << 8) | (c << 4) | d;
-      } else if (extended && ch == 't') {
-        return '\t';
-      } else if (extended && ch == 'b') {
-        return '\b';
-      } else if (extended && ch == 'n') {
-        return '\n';
-      } else if (extended && ch == 'r') {
-        return '\r';
-      } else if (extended && ch == 'f') {
-        return '\f';
-      } else if (extended && ch == '\'') {
-        return '\'';
-      } else if (extended && ch == '\\') {
-        return '\\';
-      } else if (extended && ch == '"') {
-        return '\"';
-      } else {
-        throw new ParserException();
+        return;
       }
-      // Reject surrogate code points
-      // as Unicode escapes
-      if ((ch & 0xf800) == 0xd800) {
+      this.readPredicateObjectList(sink);
+      if (this.tokens.next() != TurtleTokenizer.DOT) {
         throw new ParserException();
       }
-      return ch;
-    }
-
-    private boolean skipWhitespace() {
-      boolean haveWhitespace = false;
-      this.input.setSoftMark();
-      while (true) {
-        int ch = this.input.ReadChar();
-        if (ch == '#') {
-          while (true) {
-            ch = this.input.ReadChar();
-            if (ch < 0) {
-              return true;
-            }
-            if (ch == 0x0d || ch == 0x0a) {
-              break;
-            }
-          }
-        } else if (ch != 0x09 && ch != 0x0a && ch != 0x0d && ch != 0x20) {
-          if (ch >= 0) {
-            this.input.moveBack(1);
-          }
-          return haveWhitespace;
-        }
-        haveWhitespace = true;
-      }
-    }
-
-    private int toHexValue(int a) {
-      if (a >= '0' && a <= '9') {
-        return a - '0';
-      }
-      return (a >= 'a' && a <= 'f') ? (a + 10 - 'a') : ((a >= 'A' && a <= 'F') ?
-        (a + 10 - 'A') : (-1));
     }
   }
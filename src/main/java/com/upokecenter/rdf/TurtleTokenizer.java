@@ -0,0 +1,722 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * Splits Turtle input into typed tokens for TurtleParser. Each token is
+     * read with at most one character of lookahead, which the input peeks
+     * at without consuming, so the input is never moved back. A period that
+     * turns out not to belong to a name or number is returned as the next
+     * token instead of being read again. The parser looks ahead one token at
+     * a time: {@code peek} reads the next token and {@code next} consumes
+     * it. The token's text and other values stay available until the
+     * following call to either method.
+     */
+  final class TurtleTokenizer {
+    /** The end of the input. */
+    public static final int EOF = 0;
+    /** An IRI reference in angle brackets; the text is not resolved. */
+    public static final int IRIREF = 1;
+    /** A prefixed name; the text is the local name. */
+    public static final int PNAME = 2;
+    /** A blank node label; the text is the label after "_:". */
+    public static final int BLANK_NODE_LABEL = 3;
+    /** A string literal; the value is its contents. */
+    public static final int STRING = 4;
+    /** An "@" followed by a language tag, "prefix", or "base". */
+    public static final int LANGTAG = 5;
+    /** A number; the text is its lexical form. */
+    public static final int NUMBER = 6;
+    /** One of "a", "true", "false", "PREFIX", or "BASE". */
+    public static final int KEYWORD = 7;
+    public static final int DOT = 8;
+    public static final int COMMA = 9;
+    public static final int SEMICOLON = 10;
+    public static final int OPEN_BRACKET = 11;
+    public static final int CLOSE_BRACKET = 12;
+    public static final int OPEN_PAREN = 13;
+    public static final int CLOSE_PAREN = 14;
+    /** The "^^" before a data type. */
+    public static final int DOUBLE_CARET = 15;
+
+    // Keywords, as returned by getText; PREFIX and BASE are
+    // case-insensitive and returned in upper case
+    public static final String KeywordA = "a";
+    public static final String KeywordTrue = "true";
+    public static final String KeywordFalse = "false";
+    public static final String KeywordPrefix = "PREFIX";
+    public static final String KeywordBase = "BASE";
+
+    private static final String XsdInteger =
+      "http://www.w3.org/2001/XMLSchema#integer";
+
+    private static final String XsdDecimal =
+      "http://www.w3.org/2001/XMLSchema#decimal";
+
+    private static final String XsdDouble =
+      "http://www.w3.org/2001/XMLSchema#double";
+
+    // ASCII characters that can be copied in a run, with no
+    // further checks, in IRIs, string literals, and names
+    private static final AsciiCharSet IriRunChars =
+      new AsciiCharSet(0x21, 0x7e, "<>\"{}|^`\\");
+
+    private static final AsciiCharSet StringRunChars =
+      new AsciiCharSet(0x00, 0x7f, "\n\r\"'\\");
+
+    private static final AsciiCharSet NameRunChars =
+      new AsciiCharSet(0x2d, 0x7a, "./:;<=>?@[\\]^`");
+
+    private final IPeekableCharacterInput input;
+    // Set only when reading from a byte stream; used for
+    // checkpoints and for reading runs of ASCII characters
+    private final Utf8CharacterInput byteInput;
+    private final PrefixTrie prefixes;
+    private final StringBuilder builder = new StringBuilder();
+    // Characters of the last prefix or keyword read
+    private final StringBuilder word = new StringBuilder();
+
+    private int type;
+    private boolean haveToken;
+    // Whether a period was read as the end of the last token
+    private boolean pendingDot;
+    private String text;
+    private CharSequence value;
+    private String datatype;
+    private PrefixTrie.Node prefixNode;
+
+    /**
+     * Initializes a new instance of the {@link TurtleTokenizer} class.
+     * @param input The input to read. If it can't peek at characters, it is
+     * read through a ring buffer that can.
+     * @param byteInput The same input as a UTF-8 byte input, or null if it
+     * isn't one.
+     * @param prefixes The prefixes declared so far, which prefixed names are
+     * looked up in as they are read.
+     */
+    public TurtleTokenizer(
+  IMarkableCharacterInput input,
+  Utf8CharacterInput byteInput,
+  PrefixTrie prefixes) {
+      if (input == null) {
+        throw new NullPointerException("input");
+      }
+      this.input = (input instanceof IPeekableCharacterInput) ?
+        ((IPeekableCharacterInput)input) : new RingBufferCharacterInput(input);
+      this.byteInput = byteInput;
+      this.prefixes = prefixes;
+    }
+
+    /**
+     * Reads the next token if it wasn't read yet, without consuming it.
+     * @return The type of the next token.
+     * @throws com.upokecenter.util.ParserException The input doesn't form a
+     * valid token.
+     */
+    public int peek() {
+      if (!this.haveToken) {
+        this.type = this.readToken();
+        // The end of the input isn't kept, since more input can
+        // follow when parsing is pushed
+        this.haveToken = this.type != EOF;
+      }
+      return this.type;
+    }
+
+    /**
+     * Reads and consumes the next token.
+     * @return The type of the token.
+     * @throws com.upokecenter.util.ParserException The input doesn't form a
+     * valid token.
+     */
+    public int next() {
+      int ret = this.peek();
+      this.haveToken = false;
+      return ret;
+    }
+
+    /**
+     * Gets the text of the last token read: the unresolved IRI reference,
+     * local name, blank node label, language tag, number, or keyword.
+     * @return The token's text.
+     */
+    public String getText() {
+      return this.text;
+    }
+
+    /**
+     * Gets the contents of the last string literal read, which can be a
+     * slice of the input.
+     * @return The string's contents.
+     */
+    public CharSequence getValue() {
+      return this.value;
+    }
+
+    /**
+     * Gets the data type IRI of the last number read.
+     * @return The data type IRI.
+     */
+    public String getDatatype() {
+      return this.datatype;
+    }
+
+    /**
+     * Gets the prefix trie node of the last prefixed name read.
+     * @return The node of its prefix, or null if no declared prefix starts
+     * with that prefix.
+     */
+    public PrefixTrie.Node getPrefixNode() {
+      return this.prefixNode;
+    }
+
+    /**
+     * Gets the prefix of the last prefixed name read.
+     * @return The prefix, without its colon.
+     */
+    public String getPrefix() {
+      return this.word.toString();
+    }
+
+    /**
+     * Gets the offset in the document of the end of the last token consumed.
+     * @return The byte offset.
+     * @throws IllegalStateException The input isn't a byte input, or the
+     * next token was already read.
+     */
+    public long getByteOffset() {
+      if (this.byteInput == null || this.haveToken || this.pendingDot) {
+        throw new IllegalStateException();
+      }
+      return this.byteInput.getByteOffset();
+    }
+
+    private int readToken() {
+      if (this.pendingDot) {
+        this.pendingDot = false;
+        return DOT;
+      }
+      this.skipWhitespace();
+      // Nothing before the token is needed anymore
+      this.input.setHardMark();
+      int ch = this.input.ReadChar();
+      switch (ch) {
+        case -1:
+          return EOF;
+        case '<':
+          this.text = this.readIriReference();
+          return IRIREF;
+        case '"':
+        case '\'':
+          this.value = this.readStringLiteral(ch);
+          return STRING;
+        case '@':
+          this.text = this.readLanguageTag();
+          return LANGTAG;
+        case '_':
+          if (this.input.ReadChar() != ':') {
+            throw new ParserException();
+          }
+          this.text = this.readBlankNodeLabel();
+          return BLANK_NODE_LABEL;
+        case ':':
+          // Prefixed name with the empty prefix
+          this.word.setLength(0);
+          this.prefixNode = this.prefixes.getRoot();
+          this.text = this.readLocalName();
+          return PNAME;
+        case '.': {
+          int ch2 = this.input.peekChar();
+          if (ch2 >= '0' && ch2 <= '9') {
+            this.readNumber(ch);
+            return NUMBER;
+          }
+          return DOT;
+        }
+        case '+':
+        case '-':
+        case '0':
+        case '1':
+        case '2':
+        case '3':
+        case '4':
+        case '5':
+        case '6':
+        case '7':
+        case '8':
+        case '9':
+          this.readNumber(ch);
+          return NUMBER;
+        case ',':
+          return COMMA;
+        case ';':
+          return SEMICOLON;
+        case '[':
+          return OPEN_BRACKET;
+        case ']':
+          return CLOSE_BRACKET;
+        case '(':
+          return OPEN_PAREN;
+        case ')':
+          return CLOSE_PAREN;
+        case '^':
+          if (this.input.ReadChar() != '^') {
+            throw new ParserException();
+          }
+          return DOUBLE_CARET;
+        default:
+          if (TurtleParser.isNameStartChar(ch)) {
+            return this.readWord(ch);
+          }
+          throw new ParserException();
+      }
+    }
+
+    private void skipWhitespace() {
+      while (true) {
+        int ch = this.input.peekChar();
+        if (ch == '#') {
+          this.input.ReadChar();
+          while (true) {
+            ch = this.input.ReadChar();
+            if (ch < 0) {
+              return;
+            }
+            if (ch == 0x0d || ch == 0x0a) {
+              break;
+            }
+          }
+        } else if (ch == 0x09 || ch == 0x0a || ch == 0x0d || ch == 0x20) {
+          this.input.ReadChar();
+        } else {
+          return;
+        }
+      }
+    }
+
+    // Returns whether a period followed by the given character
+    // continues a name instead of ending it
+    private static boolean continuesName(int ch) {
+      return TurtleParser.isNameChar(ch) || ch == ':' || ch == '.';
+    }
+
+    private static void appendChar(StringBuilder builder, int ch) {
+      if (ch <= 0xffff) {
+        builder.append((char)ch);
+      } else if (ch <= 0x10ffff) {
+        builder.append((char)((((ch - 0x10000) >> 10) & 0x3ff) + 0xd800));
+        builder.append((char)(((ch - 0x10000) & 0x3ff) + 0xdc00));
+      }
+    }
+
+    // Reads a prefix followed by a colon and a local name, or a
+    // keyword, starting with the given character. Walks the prefix
+    // trie while reading the prefix, so the prefix is looked up
+    // without building it as a string.
+    private int readWord(int startChar) {
+      StringBuilder ilist = this.word;
+      ilist.setLength(0);
+      appendChar(ilist, startChar);
+      PrefixTrie.Node node = this.prefixes.getRoot().getChild(startChar);
+      boolean lastIsPeriod = false;
+      while (true) {
+        int ch = this.input.peekChar();
+        if (ch == ':') {
+          this.input.ReadChar();
+          if (lastIsPeriod) {
+            throw new ParserException();
+          }
+          this.prefixNode = node;
+          this.text = this.readLocalName();
+          return PNAME;
+        } else if (ch == '.') {
+          this.input.ReadChar();
+          if (!continuesName(this.input.peekChar())) {
+            // The period ends the statement
+            this.pendingDot = true;
+            break;
+          }
+          lastIsPeriod = true;
+        } else if (TurtleParser.isNameChar(ch)) {
+          this.input.ReadChar();
+          lastIsPeriod = false;
+        } else {
+          break;
+        }
+        appendChar(ilist, ch);
+        if (node != null) {
+          node = node.getChild(ch);
+        }
+      }
+      // Not followed by a colon, so the word must be a keyword
+      if (ilist.length() == 1 && ilist.charAt(0) == 'a') {
+        this.text = KeywordA;
+      } else if (KeywordTrue.contentEquals(ilist)) {
+        this.text = KeywordTrue;
+      } else if (KeywordFalse.contentEquals(ilist)) {
+        this.text = KeywordFalse;
+      } else if (KeywordPrefix.equalsIgnoreCase(ilist.toString())) {
+        this.text = KeywordPrefix;
+      } else if (KeywordBase.equalsIgnoreCase(ilist.toString())) {
+        this.text = KeywordBase;
+      } else {
+        throw new ParserException();
+      }
+      return KEYWORD;
+    }
+
+    private String readLocalName() {
+      StringBuilder ilist = this.builder;
+      ilist.setLength(0);
+      boolean lastIsPeriod = false;
+      boolean first = true;
+      while (true) {
+        if (!first && this.byteInput != null &&
+            this.byteInput.appendAsciiRun(ilist, NameRunChars)) {
+          lastIsPeriod = false;
+        }
+        int ch = this.input.peekChar();
+        if (ch < 0) {
+          return ilist.toString();
+        }
+        if (ch == '%') {
+          this.input.ReadChar();
+          int a = this.input.ReadChar();
+          int b = this.input.ReadChar();
+          if (toHexValue(a) < 0 || toHexValue(b) < 0) {
+            throw new ParserException();
+          }
+          ilist.append('%');
+          appendChar(ilist, a);
+          appendChar(ilist, b);
+          lastIsPeriod = false;
+          first = false;
+          continue;
+        } else if (ch == '\\') {
+          this.input.ReadChar();
+          ch = this.input.ReadChar();
+          if ((ch & 0x7f) != ch ||
+              "_~.-!$&'()*+,;=/?#@%".indexOf((char)ch) < 0) {
+            throw new ParserException();
+          }
+          appendChar(ilist, ch);
+          lastIsPeriod = false;
+          first = false;
+          continue;
+        }
+        if (first) {
+          if (!TurtleParser.isNameStartCharU(ch) && ch != ':' &&
+              (ch < '0' || ch > '9')) {
+            return ilist.toString();
+          }
+        } else if (!TurtleParser.isNameChar(ch) && ch != ':' && ch != '.') {
+          if (lastIsPeriod) {
+            throw new ParserException();
+          }
+          return ilist.toString();
+        }
+        this.input.ReadChar();
+        lastIsPeriod = ch == '.';
+        if (lastIsPeriod && !first &&
+            !continuesName(this.input.peekChar())) {
+          // The period ends the statement
+          this.pendingDot = true;
+          return ilist.toString();
+        }
+        first = false;
+        appendChar(ilist, ch);
+      }
+    }
+
+    private String readBlankNodeLabel() {
+      StringBuilder ilist = this.builder;
+      ilist.setLength(0);
+      int startChar = this.input.ReadChar();
+      if (!TurtleParser.isNameStartCharU(startChar) &&
+          (startChar < '0' || startChar > '9')) {
+        throw new ParserException();
+      }
+      appendChar(ilist, startChar);
+      boolean lastIsPeriod = false;
+      while (true) {
+        if (this.byteInput != null &&
+            this.byteInput.appendAsciiRun(ilist, NameRunChars)) {
+          lastIsPeriod = false;
+        }
+        int ch = this.input.peekChar();
+        if (ch == '.') {
+          this.input.ReadChar();
+          if (!continuesName(this.input.peekChar())) {
+            // The period ends the statement
+            this.pendingDot = true;
+            return ilist.toString();
+          }
+          lastIsPeriod = true;
+        } else if (TurtleParser.isNameChar(ch)) {
+          this.input.ReadChar();
+          lastIsPeriod = false;
+        } else {
+          if (lastIsPeriod) {
+            throw new ParserException();
+          }
+          return ilist.toString();
+        }
+        appendChar(ilist, ch);
+      }
+    }
+
+    private String readIriReference() {
+      StringBuilder ilist = this.builder;
+      ilist.setLength(0);
+      while (true) {
+        if (this.byteInput != null) {
+          this.byteInput.appendAsciiRun(ilist, IriRunChars);
+        }
+        int ch = this.input.ReadChar();
+        if (ch < 0) {
+          throw new ParserException();
+        }
+        if (ch == '>') {
+          return ilist.toString();
+        } else if (ch == '\\') {
+          ch = this.readUnicodeEscape(false);
+        }
+        if (ch <= 0x20 || ((ch & 0x7f) == ch &&
+                "><\\\"{}|^`".indexOf((char)ch) >= 0)) {
+          throw new ParserException();
+        }
+        appendChar(ilist, ch);
+      }
+    }
+
+    private String readLanguageTag() {
+      StringBuilder ilist = this.builder;
+      ilist.setLength(0);
+      boolean hyphen = false;
+      boolean haveHyphen = false;
+      boolean haveString = false;
+      while (true) {
+        int c2 = this.input.peekChar();
+        if ((c2 >= 'A' && c2 <= 'Z') || (c2 >= 'a' && c2 <= 'z') ||
+            (haveHyphen && c2 >= '0' && c2 <= '9')) {
+          hyphen = false;
+        } else if (c2 == '-') {
+          if (hyphen || !haveString) {
+            throw new ParserException();
+          }
+          hyphen = true;
+          haveHyphen = true;
+        } else {
+          if (hyphen || !haveString) {
+            throw new ParserException();
+          }
+          return ilist.toString();
+        }
+        this.input.ReadChar();
+        ilist.append((char)c2);
+        haveString = true;
+      }
+    }
+
+    // Reads a number starting with the given character, which
+    // is a sign, a period, or a digit
+    private void readNumber(int ch) {
+      StringBuilder ilist = this.builder;
+      ilist.setLength(0);
+      ilist.append((char)ch);
+      boolean haveDigits = ch >= '0' && ch <= '9';
+      boolean haveDot = ch == '.';
+      while (true) {
+        int ch1 = this.input.peekChar();
+        if (haveDigits && (ch1 == 'e' || ch1 == 'E')) {
+          this.readExponent(ilist);
+          return;
+        } else if (ch1 >= '0' && ch1 <= '9') {
+          this.input.ReadChar();
+          ilist.append((char)ch1);
+          haveDigits = true;
+        } else if (!haveDot && ch1 == '.') {
+          this.input.ReadChar();
+          int ch2 = this.input.peekChar();
+          if (ch2 != 'e' && ch2 != 'E' && (ch2 < '0' || ch2 > '9')) {
+            // The period ends the statement
+            this.pendingDot = true;
+            break;
+          }
+          ilist.append('.');
+          haveDot = true;
+        } else {
+          break;
+        }
+      }
+      if (!haveDigits) {
+        throw new ParserException();
+      }
+      this.text = ilist.toString();
+      this.datatype = haveDot ? XsdDecimal : XsdInteger;
+    }
+
+    private void readExponent(StringBuilder ilist) {
+      ilist.append((char)this.input.ReadChar());
+      int ch = this.input.ReadChar();
+      if (ch != '+' && ch != '-' && (ch < '0' || ch > '9')) {
+        throw new ParserException();
+      }
+      ilist.append((char)ch);
+      boolean haveDigits = ch >= '0' && ch <= '9';
+      while (true) {
+        ch = this.input.peekChar();
+        if (ch < '0' || ch > '9') {
+          break;
+        }
+        this.input.ReadChar();
+        ilist.append((char)ch);
+        haveDigits = true;
+      }
+      if (!haveDigits) {
+        throw new ParserException();
+      }
+      this.text = ilist.toString();
+      this.datatype = XsdDouble;
+    }
+
+    // Reads a string literal after its opening quote
+    private CharSequence readStringLiteral(int quote) {
+      StringBuilder ilist = this.builder;
+      ilist.setLength(0);
+      if (this.input.peekChar() == quote) {
+        this.input.ReadChar();
+        if (this.input.peekChar() != quote) {
+          return "";
+        }
+        this.input.ReadChar();
+        return this.readLongString(quote);
+      }
+      if (this.byteInput != null) {
+        // Refer to a short literal with no escapes in the
+        // input itself instead of copying it
+        AsciiSlice slice = this.byteInput.readAsciiSlice(StringRunChars);
+        if (slice.length() > 0) {
+          if (this.input.peekChar() == quote) {
+            this.input.ReadChar();
+            return slice;
+          }
+          ilist.append(slice);
+        }
+      }
+      while (true) {
+        if (this.byteInput != null) {
+          this.byteInput.appendAsciiRun(ilist, StringRunChars);
+        }
+        int c2 = this.input.ReadChar();
+        if (c2 == quote) {
+          return ilist.toString();
+        } else if (c2 < 0 || c2 == 0x0a || c2 == 0x0d) {
+          throw new ParserException();
+        } else if (c2 == '\\') {
+          c2 = this.readUnicodeEscape(true);
+        }
+        appendChar(ilist, c2);
+      }
+    }
+
+    // Reads a long string literal after its three opening quotes
+    private String readLongString(int quote) {
+      StringBuilder ilist = this.builder;
+      int quotecount = 0;
+      while (true) {
+        if (quotecount == 0 && this.byteInput != null) {
+          this.byteInput.appendAsciiRun(ilist, StringRunChars);
+        }
+        int c2 = this.input.ReadChar();
+        if (c2 == quote) {
+          ++quotecount;
+          if (quotecount >= 3) {
+            return ilist.toString();
+          }
+          continue;
+        }
+        if (c2 < 0) {
+          throw new ParserException();
+        }
+        if (c2 == '\\') {
+          c2 = this.readUnicodeEscape(true);
+        }
+        // Quotes that didn't end the string are part of it
+        for (int i = 0; i < quotecount; ++i) {
+          ilist.append((char)quote);
+        }
+        quotecount = 0;
+        appendChar(ilist, c2);
+      }
+    }
+
+    private int readUnicodeEscape(boolean extended) {
+      int ch = this.input.ReadChar();
+      if (ch == 'U') {
+        if (this.input.ReadChar() != '0') {
+          throw new ParserException();
+        }
+        if (this.input.ReadChar() != '0') {
+          throw new ParserException();
+        }
+        int a = toHexValue(this.input.ReadChar());
+        int b = toHexValue(this.input.ReadChar());
+        int c = toHexValue(this.input.ReadChar());
+        int d = toHexValue(this.input.ReadChar());
+        int e = toHexValue(this.input.ReadChar());
+        int f = toHexValue(this.input.ReadChar());
+        if (a < 0 || b < 0 || c < 0 || d < 0 || e < 0 || f < 0) {
+          throw new ParserException();
+        }
+        ch = (a << 20) | (b << 16) | (c << 12) | (d << 8) | (e << 4) | f;
+      } else if (ch == 'u') {
+        int a = toHexValue(this.input.ReadChar());
+        int b = toHexValue(this.input.ReadChar());
+        int c = toHexValue(this.input.ReadChar());
+        int d = toHexValue(this.input.ReadChar());
+        if (a < 0 || b < 0 || c < 0 || d < 0) {
+          throw new ParserException();
+        }
+        ch = (a << 12) | (b << 8) | (c << 4) | d;
+      } else if (extended && ch == 't') {
+        return '\t';
+      } else if (extended && ch == 'b') {
+        return '\b';
+      } else if (extended && ch == 'n') {
+        return '\n';
+      } else if (extended && ch == 'r') {
+        return '\r';
+      } else if (extended && ch == 'f') {
+        return '\f';
+      } else if (extended && ch == '\'') {
+        return '\'';
+      } else if (extended && ch == '\\') {
+        return '\\';
+      } else if (extended && ch == '"') {
+        return '\"';
+      } else {
+        throw new ParserException();
+      }
+      // Reject surrogate code points
+      // as Unicode escapes
+      if ((ch & 0xf800) == 0xd800) {
+        throw new ParserException();
+      }
+      return ch;
+    }
+
+    private static int toHexValue(int a) {
+      if (a >= '0' && a <= '9') {
+        return a - '0';
+      }
+      return (a >= 'a' && a <= 'f') ? (a + 10 - 'a') : ((a >= 'A' && a <= 'F') ?
+        (a + 10 - 'A') : (-1));
+    }
+  }
@@ -69,9 +69,9 @@ private URIUtility() {
       if (segments[2] >= 0) {
         builder.append("//");
         builder.append(
-  refValue.substring(
-  segments[2], (
-  segments[2])+(segments[3] - segments[2])));
+  refValue,
+  segments[2],
+  segments[3]);
       }
     }
 
@@ -82,9 +82,9 @@ private URIUtility() {
       if (segments[8] >= 0) {
         builder.append('#');
         builder.append(
-  refValue.substring(
-  segments[8], (
-  segments[8])+(segments[9] - segments[8])));
+  refValue,
+  segments[8],
+  segments[9]);
       }
     }
 
@@ -104,9 +104,9 @@ private URIUtility() {
   String refValue,
   int[] segments) {
       builder.append(
-  refValue.substring(
-  segments[4], (
-  segments[4])+(segments[5] - segments[4])));
+  refValue,
+  segments[4],
+  segments[5]);
     }
 
     private static void appendQuery(
@@ -116,9 +116,9 @@ private URIUtility() {
       if (segments[6] >= 0) {
         builder.append('?');
         builder.append(
-  refValue.substring(
-  segments[6], (
-  segments[6])+(segments[7] - segments[6])));
+  refValue,
+  segments[6],
+  segments[7]);
       }
     }
 
@@ -128,9 +128,9 @@ private URIUtility() {
   int[] segments) {
       if (segments[0] >= 0) {
         builder.append(
-          refValue.substring(
-  segments[0], (
-  segments[0])+(segments[1] - segments[0])));
+  refValue,
+  segments[0],
+  segments[1]);
         builder.append(':');
       }
     }
@@ -457,6 +457,21 @@ private URIUtility() {
     private static final String ValueDotSlash = "." + "/";
     private static final String ValueSlashDot = "/" + ".";
 
+    // Determines whether normalizePath would leave a path
+    // unchanged
+    private static boolean isNormalizedPath(
+  String s,
+  int startIndex,
+  int endIndex) {
+      for (int i = startIndex; i < endIndex; ++i) {
+        if (s.charAt(i) == '.' && (i == startIndex || s.charAt(i - 1) == '/' ||
+            i + 1 == endIndex || s.charAt(i + 1) == '/')) {
+          return false;
+        }
+      }
+      return true;
+    }
+
     private static String normalizePath(String path) {
       int len = path.length();
       if (len == 0 || path.equals("..") || path.equals(".")) {
@@ -867,71 +882,144 @@ private URIUtility() {
   String refValue,
   String baseURI,
   ParseMode parseMode) {
-      int[] segments = (refValue == null) ? null : splitIRI(
-        refValue,
-        0,
-        refValue.length(),
-        parseMode);
-      if (segments == null) {
+      if (refValue == null) {
         return null;
       }
-      int[] segmentsBase = (
-        baseURI == null) ? null : splitIRI(
+      ParsedIRI base = (baseURI == null) ? null : parseIRI(baseURI, parseMode);
+      if (base == null) {
+        return (splitIRI(refValue, 0, refValue.length(), parseMode) == null) ?
+          null : refValue;
+      }
+      return base.resolve(refValue);
+    }
+
+    /**
+     * Parses a URI or IRI once, so that many references can be resolved
+     * relative to it.
+     * @param baseURI A string representing an absolute URI reference.
+     * @param parseMode Parse mode that specifies whether certain characters are
+     * allowed when parsing IRIs and URIs.
+     * @return The parsed IRI, or null if {@code baseURI} is null or is not a
+     * valid IRI.
+     */
+    public static ParsedIRI parseIRI(String baseURI, ParseMode parseMode) {
+      if (baseURI == null) {
+        return null;
+      }
+      int[] segments = splitIRI(baseURI, 0, baseURI.length(), parseMode);
+      return (segments == null) ? null : new ParsedIRI(
   baseURI,
-  0,
-  baseURI.length(),
+  segments,
   parseMode);
-      if (segmentsBase == null) {
-        return refValue;
+    }
+
+    /**
+     * A URI or IRI split into its components once, for resolving references
+     * relative to it. The parts of the IRI that resolution copies are
+     * extracted in advance, and the reference is split into an array kept
+     * by this object, so that an instance must not be used by several
+     * threads at once.
+     */
+    static final class ParsedIRI {
+      private final String value;
+      private final ParseMode parseMode;
+      // The scheme followed by ':', and "//" followed by the
+      // authority, or empty strings if absent
+      private final String scheme;
+      private final String authority;
+      private final String path;
+      // '?' followed by the query, or an empty string if absent
+      private final String query;
+      // What a relative path is appended to before it's normalized
+      private final String mergePrefix;
+      private final int[] refSegments = new int[10];
+      private final StringBuilder builder = new StringBuilder();
+
+      ParsedIRI(String value, int[] segments, ParseMode parseMode) {
+        this.value = value;
+        this.parseMode = parseMode;
+        StringBuilder part = new StringBuilder();
+        appendScheme(part, value, segments);
+        this.scheme = part.toString();
+        part.setLength(0);
+        appendAuthority(part, value, segments);
+        this.authority = part.toString();
+        part.setLength(0);
+        appendPath(part, value, segments);
+        this.path = part.toString();
+        part.setLength(0);
+        appendQuery(part, value, segments);
+        this.query = part.toString();
+        this.mergePrefix = (segments[2] >= 0 && segments[4] == segments[5]) ?
+          "/" : pathParent(value, segments[4], segments[5]);
       }
-      StringBuilder builder = new StringBuilder();
-      if (segments[0] >= 0) {  // scheme present
-        appendScheme(builder, refValue, segments);
-        appendAuthority(builder, refValue, segments);
-        appendNormalizedPath(builder, refValue, segments);
-        appendQuery(builder, refValue, segments);
-        appendFragment(builder, refValue, segments);
-      } else if (segments[2] >= 0) {  // authority present
-        appendScheme(builder, baseURI, segmentsBase);
-        appendAuthority(builder, refValue, segments);
-        appendNormalizedPath(builder, refValue, segments);
-        appendQuery(builder, refValue, segments);
-        appendFragment(builder, refValue, segments);
-      } else if (segments[4] == segments[5]) {
-        appendScheme(builder, baseURI, segmentsBase);
-        appendAuthority(builder, baseURI, segmentsBase);
-        appendPath(builder, baseURI, segmentsBase);
-        if (segments[6] >= 0) {
-          appendQuery(builder, refValue, segments);
-        } else {
-          appendQuery(builder, baseURI, segmentsBase);
+
+      /**
+       * Resolves a URI or IRI relative to this one.
+       * @param refValue A string representing a URI or IRI reference.
+       * @return The resolved IRI, or null if {@code refValue} is null or is
+       * not a valid IRI.
+       */
+      public String resolve(String refValue) {
+        if (refValue == null) {
+          return null;
         }
-        appendFragment(builder, refValue, segments);
-      } else {
-        appendScheme(builder, baseURI, segmentsBase);
-        appendAuthority(builder, baseURI, segmentsBase);
-        if (segments[4] < segments[5] && refValue.charAt(segments[4]) == '/') {
+        int[] segments = this.refSegments;
+        if (!splitIRI(refValue, 0, refValue.length(), this.parseMode, segments)) {
+          return null;
+        }
+        if (segments[0] >= 0 &&
+            isNormalizedPath(refValue, segments[4], segments[5])) {
+          // An absolute IRI with no dot segments resolves to itself
+          return refValue;
+        }
+        StringBuilder builder = this.builder;
+        builder.setLength(0);
+        if (segments[0] >= 0) {  // scheme present
+          appendScheme(builder, refValue, segments);
+          appendAuthority(builder, refValue, segments);
           appendNormalizedPath(builder, refValue, segments);
+          appendQuery(builder, refValue, segments);
+          appendFragment(builder, refValue, segments);
+        } else if (segments[2] >= 0) {  // authority present
+          builder.append(this.scheme);
+          appendAuthority(builder, refValue, segments);
+          appendNormalizedPath(builder, refValue, segments);
+          appendQuery(builder, refValue, segments);
+          appendFragment(builder, refValue, segments);
+        } else if (segments[4] == segments[5]) {
+          builder.append(this.scheme);
+          builder.append(this.authority);
+          builder.append(this.path);
+          if (segments[6] >= 0) {
+            appendQuery(builder, refValue, segments);
+          } else {
+            builder.append(this.query);
+          }
+          appendFragment(builder, refValue, segments);
         } else {
-          StringBuilder merged = new StringBuilder();
-          if (segmentsBase[2] >= 0 && segmentsBase[4] == segmentsBase[5]) {
-            merged.append('/');
-            appendPath(merged, refValue, segments);
-            builder.append(normalizePath(merged.toString()));
+          builder.append(this.scheme);
+          builder.append(this.authority);
+          if (segments[4] < segments[5] && refValue.charAt(segments[4]) == '/') {
+            appendNormalizedPath(builder, refValue, segments);
           } else {
-            merged.append(
-              pathParent(
-  baseURI,
-  segmentsBase[4],
-  segmentsBase[5]));
+            StringBuilder merged = new StringBuilder(this.mergePrefix);
             appendPath(merged, refValue, segments);
             builder.append(normalizePath(merged.toString()));
           }
+          appendQuery(builder, refValue, segments);
+          appendFragment(builder, refValue, segments);
         }
-        appendQuery(builder, refValue, segments);
-        appendFragment(builder, refValue, segments);
+        return builder.toString();
+      }
+
+      /**
+       * Gets the IRI as a string.
+       * @return The IRI this object was parsed from.
+       */
+      @Override public String toString() {
+        return this.value;
       }
-      return builder.toString();
     }
 
     /**
@@ -982,14 +1070,54 @@ private URIUtility() {
       if (s == null) {
         return null;
       }
+      int[] retval = new int[10];
+      return splitIRI(s, offset, length, parseMode, retval) ? retval : null;
+    }
+
+    /**
+     * Parses a substring that represents an Internationalized Resource Identifier
+     * (IRI) under RFC3987, storing the indices of its components in an
+     * existing array instead of a new one.
+     * @param s A string that contains an IRI.
+     * @param offset A zero-based index showing where the desired portion of "s"
+     * begins.
+     * @param length The length of the desired portion of "s" (but not more than
+     * "s" 's length).
+     * @param parseMode Parse mode that specifies whether certain characters are
+     * allowed when parsing IRIs and URIs.
+     * @param retval An array of at least 10 integers that receives the start
+     * and end indices of the IRI's components, as returned by the other
+     * overloads. Its contents are unspecified if the IRI is not valid.
+     * @return {@code true} if the string is a valid IRI; otherwise, {@code
+     * false}.
+     * @throws IllegalArgumentException Either {@code offset} or {@code length} is
+     * less than 0 or greater than {@code s} 's length, or {@code s} 's
+     * length minus {@code offset} is less than {@code length}.
+     * @throws java.lang.NullPointerException The parameter {@code s} or {@code
+     * retval} is null.
+     */
+    public static boolean splitIRI(
+  String s,
+  int offset,
+  int length,
+  ParseMode parseMode,
+  int[] retval) {
+      if (s == null) {
+        throw new NullPointerException("s");
+      }
+      if (retval == null) {
+        throw new NullPointerException("retval");
+      }
       if (offset < 0 || length < 0 || offset + length > s.length()) {
         throw new IllegalArgumentException();
       }
-      int[] retval = { -1, -1, -1, -1, -1, -1, -1, -1, -1, -1 };
+      for (int i = 0; i < 10; ++i) {
+        retval[i] = -1;
+      }
       if (length == 0) {
         retval[4] = 0;
         retval[5] = 0;
-        return retval;
+        return true;
       }
       boolean asciiOnly = parseMode == ParseMode.URILenient || parseMode ==
         ParseMode.URIStrict;
@@ -1038,7 +1166,7 @@ private URIUtility() {
         while (index < valueSLength) {
           int c = s.charAt(index);
           if (asciiOnly && c >= 0x80) {
-            return null;
+            return false;
           }
           if ((c & 0xfc00) == 0xd800 && index + 1 < valueSLength &&
               s.charAt(index + 1) >= 0xdc00 && s.charAt(index + 1) <= 0xdfff) {
@@ -1049,7 +1177,7 @@ private URIUtility() {
             if (parseMode == ParseMode.IRISurrogateLenient) {
               c = 0xfffd;
             } else {
-              return null;
+              return false;
             }
           }
           if (c == '%' && (state == 0 || state == 1) && strict) {
@@ -1059,7 +1187,7 @@ private URIUtility() {
               index += 3;
               continue;
             }
-            return null;
+            return false;
           }
           if (state == 0) {  // User info
             if (c == '/' || c == '?' || c == '#') {
@@ -1100,7 +1228,7 @@ private URIUtility() {
               ++index;
               index = parseIPLiteral(s, index, valueSLength);
               if (index < 0) {
-                return null;
+                return false;
               }
               continue;
             } else if (c == ':') {
@@ -1113,7 +1241,7 @@ private URIUtility() {
               // in ireg-name)
               ++index;
             } else {
-              return null;
+              return false;
             }
           } else if (state == 2) {  // Port
             if (c == '/' || c == '?' || c == '#') {
@@ -1124,7 +1252,7 @@ private URIUtility() {
             if (c >= '0' && c <= '9') {
               ++index;
             } else {
-              return null;
+              return false;
             }
           }
         }
@@ -1139,7 +1267,7 @@ private URIUtility() {
         // Get the next Unicode character
         int c = s.charAt(index);
         if (asciiOnly && c >= 0x80) {
-          return null;
+          return false;
         }
         if ((c & 0xfc00) == 0xd800 && index + 1 < valueSLength &&
             s.charAt(index + 1) >= 0xdc00 && s.charAt(index + 1) <= 0xdfff) {
@@ -1148,7 +1276,7 @@ private URIUtility() {
           ++index;
         } else if ((c & 0xf800) == 0xd800) {
           // error
-          return null;
+          return false;
         }
         if (c == '%' && strict) {
           // Percent encoded character
@@ -1157,7 +1285,7 @@ private URIUtility() {
             index += 3;
             continue;
           }
-          return null;
+          return false;
         }
         if (state == 0) {  // Path
           if (c == ':' && fullyRelative) {
@@ -1165,7 +1293,7 @@ private URIUtility() {
           } else if (c == '/' && fullyRelative && !segment) {
             // noscheme path can't have colon before slash
             if (strict && colon) {
-              return null;
+              return false;
             }
             segment = true;
           }
@@ -1180,7 +1308,7 @@ private URIUtility() {
             retval[9] = valueSLength;
             state = 2;  // move to fragment state
           } else if (strict && !isIpchar(c)) {
-            return null;
+            return false;
           }
           ++index;
         } else if (state == 1) {  // Query
@@ -1190,20 +1318,20 @@ private URIUtility() {
             retval[9] = valueSLength;
             state = 2;  // move to fragment state
           } else if (strict && !isIqueryChar(c)) {
-            return null;
+            return false;
           }
           ++index;
         } else if (state == 2) {  // Fragment
           if (strict && !isIfragmentChar(c)) {
-            return null;
+            return false;
           }
           ++index;
         }
       }
       if (strict && fullyRelative && colon && !segment) {
-        return null;  // ex. "x@y:z"
+        return false;  // ex. "x@y:z"
       }
-      return retval;
+      return true;
     }
 
     /**
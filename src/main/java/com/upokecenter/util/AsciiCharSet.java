@@ -0,0 +1,76 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * A set of ASCII characters, given as a range of characters minus a few
+     * excluded characters. Used to find runs of characters that need no
+     * further checks.
+     */
+  final class AsciiCharSet {
+    private final int first;
+    private final int last;
+    private final byte[] excluded;
+    private final boolean[] table;
+
+    /**
+     * Initializes a new instance of the {@link AsciiCharSet} class.
+     * @param first The first character in the range, from 0 through 0x7F.
+     * @param last The last character in the range, from 0 through 0x7F.
+     * @param excluded A string of characters in the range that are not in the
+     * set.
+     */
+    public AsciiCharSet(int first, int last, String excluded) {
+      this.first = first;
+      this.last = last;
+      this.excluded = new byte[excluded.length()];
+      this.table = new boolean[0x80];
+      for (int i = 0; i < excluded.length(); ++i) {
+        this.excluded[i] = (byte)excluded.charAt(i);
+      }
+      for (int i = first; i <= last; ++i) {
+        this.table[i] = excluded.indexOf((char)i) < 0;
+      }
+    }
+
+    /**
+     * Determines whether a byte is a character in this set.
+     * @param b A byte value, from -128 through 127.
+     * @return {@code true} if the byte is in this set; otherwise, {@code
+     * false}.
+     */
+    public boolean contains(int b) {
+      return b >= 0 && this.table[b];
+    }
+
+    /**
+     * Gets the first character in this set's range.
+     * @return The first character.
+     */
+    public int getFirst() {
+      return this.first;
+    }
+
+    /**
+     * Gets the last character in this set's range.
+     * @return The last character.
+     */
+    public int getLast() {
+      return this.last;
+    }
+
+    /**
+     * Gets the characters in this set's range that are not in the set.
+     * @return An array of the excluded characters. The array is not copied
+     * and must not be changed.
+     */
+    public byte[] getExcluded() {
+      return this.excluded;
+    }
+  }
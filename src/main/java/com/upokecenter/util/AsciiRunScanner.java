@@ -0,0 +1,62 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * Finds the end of a run of bytes that belong to a set of ASCII characters,
+     * such as the characters of an IRI or string literal up to the next
+     * delimiter. This class checks one byte at a time; when the Vector API
+     * module ({@code jdk.incubator.vector}) is present, getInstance returns
+     * a subclass that checks many bytes at a time.
+     */
+  class AsciiRunScanner {
+    private static final String VectorScannerName =
+      "com.upokecenter.util.VectorAsciiRunScanner";
+
+    private static final AsciiRunScanner Instance = createInstance();
+
+    private static AsciiRunScanner createInstance() {
+      try {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector")
+            .isPresent()) {
+          return (AsciiRunScanner)Class.forName(VectorScannerName)
+            .getDeclaredConstructor().newInstance();
+        }
+      } catch (ReflectiveOperationException ex) {
+        // Vector scanner not compiled in; use this class
+      } catch (LinkageError ex) {
+        // Vector API not usable; use this class
+      }
+      return new AsciiRunScanner();
+    }
+
+    /**
+     * Gets the fastest scanner available in this runtime.
+     * @return A scanner.
+     */
+    public static AsciiRunScanner getInstance() {
+      return Instance;
+    }
+
+    /**
+     * Finds the first byte in a range that is not in the given set.
+     * @param bytes A byte array.
+     * @param start Index of the first byte to check.
+     * @param end Index just past the last byte to check.
+     * @param set A set of ASCII characters.
+     * @return The index of the first byte not in the set, or {@code end} if
+     * all the bytes are in the set.
+     */
+    public int skip(byte[] bytes, int start, int end, AsciiCharSet set) {
+      while (start < end && set.contains(bytes[start])) {
+        ++start;
+      }
+      return start;
+    }
+  }
@@ -0,0 +1,93 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.nio.charset.*;
+
+    /**
+     * A sequence of ASCII characters stored as a range of bytes in an array,
+     * such as part of a parser's input buffer. The bytes in the range must
+     * not change while the slice is in use.
+     */
+  final class AsciiSlice implements CharSequence {
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Initializes a new instance of the {@link AsciiSlice} class.
+     * @param bytes A byte array containing only ASCII bytes in the given
+     * range.
+     * @param offset Index of the first byte in the range.
+     * @param length Number of bytes in the range.
+     */
+    public AsciiSlice(byte[] bytes, int offset, int length) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    public int length() {
+      return this.length;
+    }
+
+    public char charAt(int index) {
+      if (index < 0 || index >= this.length) {
+        throw new IndexOutOfBoundsException();
+      }
+      return (char)this.bytes[this.offset + index];
+    }
+
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || end > this.length || start > end) {
+        throw new IndexOutOfBoundsException();
+      }
+      return new AsciiSlice(this.bytes, this.offset + start, end - start);
+    }
+
+    /**
+     * Finds the first occurrence of an ASCII character in this slice.
+     * @param c An ASCII character.
+     * @return The index of the character, or -1 if it doesn't occur.
+     */
+    public int indexOf(int c) {
+      for (int i = 0; i < this.length; ++i) {
+        if (this.bytes[this.offset + i] == c) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Calculates the same hash code as the equivalent string would have.
+     * @return A 32-bit hash code.
+     */
+    @Override public int hashCode() {
+      int hash = 0;
+      for (int i = 0; i < this.length; ++i) {
+        hash = (31 * hash) + this.bytes[this.offset + i];
+      }
+      return hash;
+    }
+
+    /**
+     * Converts this slice to a string.
+     * @return A string with the characters in this slice.
+     */
+    @Override public String toString() {
+      // ASCII bytes decode the same way in Latin-1, which
+      // needs no decoding step
+      return new String(
+  this.bytes,
+  this.offset,
+  this.length,
+  StandardCharsets.ISO_8859_1);
+    }
+  }
@@ -0,0 +1,54 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.nio.*;
+
+    /**
+     * A byte reader over the remaining bytes of a byte buffer.
+     */
+  final class ByteBufferReader implements IBulkByteReader {
+    private final ByteBuffer buffer;
+
+    /**
+     * Initializes a new instance of the {@link ByteBufferReader} class. The
+     * reader advances the given buffer's position.
+     * @param buffer A byte buffer.
+     */
+    public ByteBufferReader(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    /**
+     * Reads the next byte.
+     * @return The next byte (0-255), or -1 if no bytes remain.
+     */
+    public int read() {
+      return this.buffer.hasRemaining() ? (this.buffer.get() & 0xff) : -1;
+    }
+
+    /**
+     * Reads up to the given number of bytes.
+     * @param bytes An array to store the bytes in.
+     * @param offset Index in {@code bytes} of the first byte to store.
+     * @param length Maximum number of bytes to read.
+     * @return The number of bytes read, or -1 if no bytes remain.
+     */
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!this.buffer.hasRemaining()) {
+        return -1;
+      }
+      length = Math.min(length, this.buffer.remaining());
+      this.buffer.get(bytes, offset, length);
+      return length;
+    }
+  }
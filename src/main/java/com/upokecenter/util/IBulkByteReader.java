@@ -0,0 +1,24 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * A byte reader that can also read many bytes at once.
+     */
+  interface IBulkByteReader extends IByteReader {
+    /**
+     * Reads up to the given number of bytes.
+     * @param bytes An array to store the bytes in.
+     * @param offset Index in {@code bytes} of the first byte to store.
+     * @param length Maximum number of bytes to read.
+     * @return The number of bytes read, or -1 at the end of the stream. Returns
+     * 0 only if {@code length} is 0.
+     */
+    int read(byte[] bytes, int offset, int length);
+  }
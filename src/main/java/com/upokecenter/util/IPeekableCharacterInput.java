@@ -0,0 +1,22 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+    /**
+     * A markable character input that can return the next character without
+     * reading it, so that a parser can decide how to go on without setting
+     * a mark and moving back.
+     */
+  interface IPeekableCharacterInput extends IMarkableCharacterInput {
+    /**
+     * Gets the next character without advancing the position.
+     * @return The next Unicode code point, or -1 at the end of the input.
+     */
+   int peekChar();
+}
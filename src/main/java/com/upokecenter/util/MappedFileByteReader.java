@@ -0,0 +1,113 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+    /**
+     * A byte reader over a file, which maps the file into memory one window at
+     * a time instead of reading it through a stream. This is not zero-copy:
+     * the bulk read copies bytes from the current window into the caller's
+     * array, but it does so with one bulk copy per call instead of one
+     * call per byte. The reader starts at the channel's current position
+     * and doesn't change that position.
+     */
+  final class MappedFileByteReader implements IBulkByteReader {
+    // Size of each mapped window; the last window may be shorter
+    private static final int WindowSize = 1 << 26;
+
+    private final FileChannel channel;
+    private final long startPosition;
+    private long windowEnd;
+    private MappedByteBuffer window;
+
+    /**
+     * Initializes a new instance of the {@link MappedFileByteReader} class.
+     * @param channel A file channel open for reading. It must stay open until
+     * the reader is no longer used.
+     * @throws java.lang.NullPointerException The parameter {@code channel} is
+     * null.
+     * @throws java.io.IOException An I/O error occurred.
+     */
+    public MappedFileByteReader(FileChannel channel) throws IOException {
+      if (channel == null) {
+        throw new NullPointerException("channel");
+      }
+      this.channel = channel;
+      this.startPosition = channel.position();
+      this.windowEnd = this.startPosition;
+    }
+
+    /**
+     * Gets the position in the file where this reader started.
+     * @return The starting file position.
+     */
+    public long getStartPosition() {
+      return this.startPosition;
+    }
+
+    private boolean nextWindow() {
+      try {
+        long size = this.channel.size();
+        if (this.windowEnd >= size) {
+          return false;
+        }
+        long length = Math.min(WindowSize, size - this.windowEnd);
+        this.window = this.channel.map(
+  FileChannel.MapMode.READ_ONLY,
+  this.windowEnd,
+  length);
+        this.windowEnd += length;
+        return true;
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    /**
+     * Reads the next byte.
+     * @return The next byte (0-255), or -1 at the end of the file.
+     * @throws java.io.UncheckedIOException An I/O error occurred while mapping
+     * the next part of the file.
+     */
+    public int read() {
+      if (this.window == null || !this.window.hasRemaining()) {
+        if (!this.nextWindow()) {
+          return -1;
+        }
+      }
+      return this.window.get() & 0xff;
+    }
+
+    /**
+     * Reads up to the given number of bytes, by copying them from the current
+     * mapped window.
+     * @param bytes An array to store the bytes in.
+     * @param offset Index in {@code bytes} of the first byte to store.
+     * @param length Maximum number of bytes to read.
+     * @return The number of bytes read, or -1 at the end of the file.
+     * @throws java.io.UncheckedIOException An I/O error occurred while mapping
+     * the next part of the file.
+     */
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (this.window == null || !this.window.hasRemaining()) {
+        if (!this.nextWindow()) {
+          return -1;
+        }
+      }
+      length = Math.min(length, this.window.remaining());
+      this.window.get(bytes, offset, length);
+      return length;
+    }
+  }
@@ -0,0 +1,270 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import com.upokecenter.text.*;
+
+    /**
+     * A markable character input that keeps the characters read since the
+     * last mark in a ring buffer. Setting a mark only moves an index, instead
+     * of shifting the buffered characters to the start of the buffer. The
+     * buffer grows while a long token is read and shrinks again at the next
+     * mark, and the number of characters that can be read past a mark can
+     * be limited.
+     */
+  final class RingBufferCharacterInput implements
+    IPeekableCharacterInput {
+    private static final int InitialCapacity = 256;
+    private static final int MaxCapacity = 1 << 30;
+    // The buffer shrinks only if it grew beyond this size
+    private static final int ShrinkThreshold = 1 << 14;
+
+    private final ICharacterInput source;
+    private final int maxLookahead;
+    private int[] ring;
+    private int mask;
+    // Index in the ring of the character at the mark
+    private int markIndex;
+    // Position of the next character to read, and number of
+    // characters in the ring, both counted from the mark
+    private int pos;
+    private int endpos;
+    private boolean haveMark;
+
+    /**
+     * Initializes a new instance of the {@link RingBufferCharacterInput} class
+     * with no limit on the number of characters read past a mark.
+     * @param source The input to read characters from.
+     * @throws java.lang.NullPointerException The parameter {@code source} is
+     * null.
+     */
+    public RingBufferCharacterInput(ICharacterInput source) {
+ this(source, MaxCapacity);
+    }
+
+    /**
+     * Initializes a new instance of the {@link RingBufferCharacterInput}
+     * class.
+     * @param source The input to read characters from.
+     * @param maxLookahead The maximum number of characters that can be read
+     * past the last mark. Reading more throws an exception, so that a
+     * single huge token doesn't use up memory.
+     * @throws java.lang.NullPointerException The parameter {@code source} is
+     * null.
+     * @throws IllegalArgumentException The parameter {@code maxLookahead} is
+     * less than 1.
+     */
+    public RingBufferCharacterInput(ICharacterInput source, int maxLookahead) {
+      if (source == null) {
+        throw new NullPointerException("source");
+      }
+      if (maxLookahead < 1) {
+        throw new IllegalArgumentException("maxLookahead (" + maxLookahead +
+          ") is less than 1");
+      }
+      this.source = source;
+      this.maxLookahead = Math.min(maxLookahead, MaxCapacity);
+      this.ring = new int[InitialCapacity];
+      this.mask = InitialCapacity - 1;
+    }
+
+    // Copies the buffered characters to a ring of the given
+    // capacity, starting at index 0
+    private void resize(int capacity) {
+      int[] newRing = new int[capacity];
+      int first = Math.min(this.endpos, this.ring.length - this.markIndex);
+      System.arraycopy(this.ring, this.markIndex, newRing, 0, first);
+      System.arraycopy(this.ring, 0, newRing, first, this.endpos - first);
+      this.ring = newRing;
+      this.mask = capacity - 1;
+      this.markIndex = 0;
+    }
+
+    // Reads more characters into the ring. Returns false at the
+    // end of the input.
+    private boolean fill() {
+      if (this.endpos == this.ring.length) {
+        this.resize(this.ring.length * 2);
+      }
+      // Read into the free part of the ring up to its end or
+      // the mark, whichever comes first
+      int index = (this.markIndex + this.endpos) & this.mask;
+      int free = Math.min(
+  this.ring.length - this.endpos,
+  this.ring.length - index);
+      free = Math.min(free, this.maxLookahead - this.endpos);
+      int count = this.source.Read(this.ring, index, free);
+      if (count <= 0) {
+        return false;
+      }
+      this.endpos += count;
+      return true;
+    }
+
+    /**
+     * Reads the next character.
+     * @return The next Unicode code point, or -1 at the end of the input.
+     * @throws IllegalStateException More characters than the maximum
+     * lookahead were read past the mark.
+     */
+    public int ReadChar() {
+      if (!this.haveMark) {
+        return this.source.ReadChar();
+      }
+      if (this.pos >= this.endpos) {
+        if (this.pos >= this.maxLookahead) {
+          throw new IllegalStateException("More than " + this.maxLookahead +
+            " characters read past the mark");
+        }
+        if (!this.fill()) {
+          return -1;
+        }
+      }
+      return this.ring[(this.markIndex + this.pos++) & this.mask];
+    }
+
+    /**
+     * Gets the next character without advancing the position. Sets a mark if
+     * none is set, so that the character can be kept in the buffer.
+     * @return The next Unicode code point, or -1 at the end of the input.
+     * @throws IllegalStateException More characters than the maximum
+     * lookahead were read past the mark.
+     */
+    public int peekChar() {
+      if (!this.haveMark) {
+        this.setHardMark();
+      }
+      if (this.pos >= this.endpos) {
+        if (this.pos >= this.maxLookahead) {
+          throw new IllegalStateException("More than " + this.maxLookahead +
+            " characters read past the mark");
+        }
+        if (!this.fill()) {
+          return -1;
+        }
+      }
+      return this.ring[(this.markIndex + this.pos) & this.mask];
+    }
+
+    /**
+     * Reads characters into an array.
+     * @param buf An array to store the code points in.
+     * @param offset Index in {@code buf} of the first code point to store.
+     * @param unitCount Maximum number of code points to read.
+     * @return The number of code points read.
+     * @throws java.lang.NullPointerException The parameter {@code buf} is null.
+     */
+    public int Read(int[] buf, int offset, int unitCount) {
+      if (buf == null) {
+        throw new NullPointerException("buf");
+      }
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset less than 0 (" + offset +
+          ")");
+      }
+      if (unitCount < 0) {
+        throw new IllegalArgumentException("unitCount less than 0 (" +
+          unitCount + ")");
+      }
+      if (offset + unitCount > buf.length) {
+        throw new IllegalArgumentException("offset+unitCount more than " +
+          buf.length + " (" + (offset + unitCount) + ")");
+      }
+      if (!this.haveMark) {
+        return this.source.Read(buf, offset, unitCount);
+      }
+      int count = 0;
+      while (count < unitCount) {
+        int c = this.ReadChar();
+        if (c < 0) {
+          break;
+        }
+        buf[offset + count] = c;
+        ++count;
+      }
+      return count;
+    }
+
+    /**
+     * Gets the position in the input from the last-set mark.
+     * @return The position from the mark.
+     */
+    public int getMarkPosition() {
+      return this.pos;
+    }
+
+    /**
+     * Moves the input position back the given number of characters.
+     * @param count The number of characters to move back.
+     * @throws IllegalStateException No mark is set, or the new position would
+     * be before the mark.
+     */
+    public void moveBack(int count) {
+      if (count < 0) {
+        throw new IllegalArgumentException("count less than 0 (" + count +
+          ")");
+      }
+      if (this.haveMark && this.pos >= count) {
+        this.pos -= count;
+        return;
+      }
+      throw new IllegalStateException();
+    }
+
+    /**
+     * Sets a mark on the input's current position. Characters before the
+     * position are discarded, and the buffer shrinks if it grew for a long
+     * token.
+     * @return The position from the new mark, which is 0.
+     */
+    public int setHardMark() {
+      if (this.haveMark) {
+        this.markIndex = (this.markIndex + this.pos) & this.mask;
+        this.endpos -= this.pos;
+        this.pos = 0;
+        if (this.ring.length > ShrinkThreshold &&
+            this.endpos <= (this.ring.length >> 2)) {
+          int capacity = InitialCapacity;
+          while (capacity < this.endpos * 2) {
+            capacity <<= 1;
+          }
+          if (capacity < this.ring.length) {
+            this.resize(capacity);
+          }
+        }
+      } else {
+        this.haveMark = true;
+      }
+      return 0;
+    }
+
+    /**
+     * Sets the input's position from the last set mark.
+     * @param pos Zero-based character offset from the last set mark.
+     * @throws IllegalStateException No mark is set, or the position is out of
+     * range.
+     */
+    public void setMarkPosition(int pos) {
+      if (!this.haveMark || pos < 0 || pos > this.endpos) {
+        throw new IllegalStateException();
+      }
+      this.pos = pos;
+    }
+
+    /**
+     * If no mark is set, sets a mark on the input's current position.
+     * @return The position from the last set mark.
+     */
+    public int setSoftMark() {
+      if (!this.haveMark) {
+        this.setHardMark();
+      }
+      return this.getMarkPosition();
+    }
+  }
@@ -0,0 +1,417 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import java.io.UncheckedIOException;
+import java.nio.charset.MalformedInputException;
+
+    /**
+     * A markable character input that decodes UTF-8 directly from a buffer of
+     * bytes, instead of decoding each character into a separate buffer of
+     * code points. Mark positions are byte positions from the mark, and
+     * bytes before the mark are discarded only when the buffer is refilled.
+     * The bytes are always copied from the reader into this input's own
+     * buffer, even when the reader maps a file; the buffer doubles in size
+     * when a refill finds it full of bytes kept for the mark.
+     * Invalid byte sequences are read as U+FFFD. A byte order mark is not
+     * skipped. In ASCII-only mode, used for N-Triples, bytes are characters
+     * and a byte above 0x7F throws an UncheckedIOException.
+     */
+  final class Utf8CharacterInput implements IPeekableCharacterInput {
+    private static final int InitialBufferSize = 8192;
+    private static final AsciiRunScanner Scanner =
+      AsciiRunScanner.getInstance();
+
+    private final IByteReader reader;
+    private final IBulkByteReader bulkReader;
+    private final boolean asciiOnly;
+    private byte[] buffer;
+    private int pos;
+    private int endpos;
+    private int markpos;
+    private boolean haveMark;
+    private boolean atEnd;
+    // Offset in the stream of the first byte in the buffer
+    private long bufferOffset;
+    // Number of bytes in the last character read, or 0 if unknown
+    private int lastCharLength;
+    // Whether slices of the current buffer were handed out, in
+    // which case its bytes must not be moved or overwritten
+    private boolean sliced;
+
+    /**
+     * Initializes a new instance of the {@link Utf8CharacterInput} class.
+     * @param reader A byte reader.
+     * @param offset The offset of the reader's first byte in the document,
+     * which is added to positions returned by getByteOffset.
+     * @throws java.lang.NullPointerException The parameter {@code reader} is
+     * null.
+     */
+    public Utf8CharacterInput(IByteReader reader, long offset) {
+ this(reader, offset, false);
+    }
+
+    /**
+     * Initializes a new instance of the {@link Utf8CharacterInput} class.
+     * @param reader A byte reader.
+     * @param offset The offset of the reader's first byte in the document,
+     * which is added to positions returned by getByteOffset.
+     * @param asciiOnly If true, the input must contain only ASCII bytes
+     * (0x00-0x7F), and reading any other byte throws an exception.
+     * @throws java.lang.NullPointerException The parameter {@code reader} is
+     * null.
+     */
+    public Utf8CharacterInput(
+  IByteReader reader,
+  long offset,
+  boolean asciiOnly) {
+      if (reader == null) {
+        throw new NullPointerException("reader");
+      }
+      this.reader = reader;
+      this.bulkReader = (reader instanceof IBulkByteReader) ?
+        ((IBulkByteReader)reader) : null;
+      this.buffer = new byte[InitialBufferSize];
+      this.bufferOffset = offset;
+      this.asciiOnly = asciiOnly;
+    }
+
+    /**
+     * Gets the offset in the document of the next byte to be read.
+     * @return The byte offset.
+     */
+    public long getByteOffset() {
+      return this.bufferOffset + this.pos;
+    }
+
+    // Reads more bytes into the buffer, first discarding
+    // bytes no longer needed. Returns false at the end of the stream.
+    private boolean fill() {
+      if (this.atEnd) {
+        return false;
+      }
+      int keep = this.haveMark ? this.markpos : this.pos;
+      if (this.sliced) {
+        // Copy the bytes still needed to a new buffer, leaving
+        // the old one to the slices that refer to it
+        int size = this.buffer.length;
+        if (this.endpos - keep == size) {
+          size *= 2;
+        }
+        byte[] newBuffer = new byte[size];
+        System.arraycopy(this.buffer, keep, newBuffer, 0, this.endpos - keep);
+        this.buffer = newBuffer;
+        this.sliced = false;
+      } else if (keep > 0) {
+        System.arraycopy(this.buffer, keep, this.buffer, 0, this.endpos - keep);
+      }
+      if (keep > 0) {
+        this.endpos -= keep;
+        this.pos -= keep;
+        this.markpos -= keep;
+        this.bufferOffset += keep;
+      }
+      if (this.endpos == this.buffer.length) {
+        byte[] newBuffer = new byte[this.buffer.length * 2];
+        System.arraycopy(this.buffer, 0, newBuffer, 0, this.endpos);
+        this.buffer = newBuffer;
+      }
+      int count;
+      if (this.bulkReader != null) {
+        count = this.bulkReader.read(
+  this.buffer,
+  this.endpos,
+  this.buffer.length - this.endpos);
+      } else {
+        count = 0;
+        while (this.endpos + count < this.buffer.length) {
+          int b = this.reader.read();
+          if (b < 0) {
+            break;
+          }
+          this.buffer[this.endpos + count] = (byte)b;
+          ++count;
+        }
+      }
+      if (count <= 0) {
+        this.atEnd = true;
+        return false;
+      }
+      this.endpos += count;
+      return true;
+    }
+
+    /**
+     * Reads the next character.
+     * @return The next Unicode code point, or -1 at the end of the input.
+     * @throws java.io.UncheckedIOException The input is ASCII-only and the
+     * next byte is not ASCII; the cause is a MalformedInputException.
+     */
+    public int ReadChar() {
+      if (this.pos >= this.endpos && !this.fill()) {
+        return -1;
+      }
+      int b = this.buffer[this.pos];
+      if (b >= 0) {
+        ++this.pos;
+        this.lastCharLength = 1;
+        return b;
+      }
+      this.checkNotAsciiOnly();
+      return this.readMultiByte(b & 0xff);
+    }
+
+    // Called on a byte above 0x7F, which is an error in ASCII-only
+    // mode. The exception is unchecked since ICharacterInput's
+    // methods declare none; parsers turn it into a ParserException.
+    private void checkNotAsciiOnly() {
+      if (this.asciiOnly) {
+        throw new UncheckedIOException(new MalformedInputException(1));
+      }
+    }
+
+    /**
+     * Gets the next character without advancing the position.
+     * @return The next Unicode code point, or -1 at the end of the input.
+     * @throws java.io.UncheckedIOException The input is ASCII-only and the
+     * next byte is not ASCII; the cause is a MalformedInputException.
+     */
+    public int peekChar() {
+      if (this.pos >= this.endpos && !this.fill()) {
+        return -1;
+      }
+      int b = this.buffer[this.pos];
+      if (b >= 0) {
+        return b;
+      }
+      this.checkNotAsciiOnly();
+      // Decode the character, then go back to it; refilling the
+      // buffer may move the bytes, but not their stream offset
+      long offset = this.bufferOffset + this.pos;
+      int length = this.lastCharLength;
+      int ch = this.readMultiByte(b & 0xff);
+      this.pos = (int)(offset - this.bufferOffset);
+      this.lastCharLength = length;
+      return ch;
+    }
+
+    private int readMultiByte(int lead) {
+      int needed;
+      int lower = 0x80;
+      int upper = 0xbf;
+      int cp;
+      if (lead >= 0xc2 && lead <= 0xdf) {
+        needed = 1;
+        cp = lead & 0x1f;
+      } else if (lead >= 0xe0 && lead <= 0xef) {
+        needed = 2;
+        lower = (lead == 0xe0) ? 0xa0 : 0x80;
+        upper = (lead == 0xed) ? 0x9f : 0xbf;
+        cp = lead & 0x0f;
+      } else if (lead >= 0xf0 && lead <= 0xf4) {
+        needed = 3;
+        lower = (lead == 0xf0) ? 0x90 : 0x80;
+        upper = (lead == 0xf4) ? 0x8f : 0xbf;
+        cp = lead & 0x07;
+      } else {
+        ++this.pos;
+        this.lastCharLength = 1;
+        return 0xfffd;
+      }
+      while (this.endpos - this.pos <= needed && this.fill()) {
+      }
+      int length = 1;
+      while (length <= needed && this.pos + length < this.endpos) {
+        int b = this.buffer[this.pos + length] & 0xff;
+        if (b < lower || b > upper) {
+          break;
+        }
+        lower = 0x80;
+        upper = 0xbf;
+        cp = (cp << 6) | (b & 0x3f);
+        ++length;
+      }
+      this.pos += length;
+      this.lastCharLength = length;
+      // An incomplete sequence reads as a single replacement character
+      return (length > needed) ? cp : 0xfffd;
+    }
+
+    /**
+     * Appends to a string builder the ASCII characters starting at the current
+     * position, up to the first character not in the given set, without
+     * decoding them one at a time.
+     * @param builder A string builder.
+     * @param chars The set of ASCII characters that can be appended.
+     * @return {@code true} if any characters were appended; otherwise, {@code
+     * false}.
+     */
+    public boolean appendAsciiRun(StringBuilder builder, AsciiCharSet chars) {
+      boolean appended = false;
+      while (true) {
+        byte[] buf = this.buffer;
+        int start = this.pos;
+        int end = this.endpos;
+        int p = Scanner.skip(buf, start, end, chars);
+        if (p > start) {
+          builder.ensureCapacity(builder.length() + (p - start));
+          for (int i = start; i < p; ++i) {
+            builder.append((char)buf[i]);
+          }
+          this.pos = p;
+          this.lastCharLength = 1;
+          appended = true;
+        }
+        if (p < end || !this.fill()) {
+          return appended;
+        }
+      }
+    }
+
+    /**
+     * Reads the ASCII characters starting at the current position, up to the
+     * first character not in the given set, as a slice of this input's
+     * buffer rather than a copy. The buffer's bytes are never changed once
+     * a slice refers to them. Sets a mark if none is set.
+     * @param chars The set of ASCII characters that can be read.
+     * @return A slice of the characters read, which may be empty.
+     */
+    public AsciiSlice readAsciiSlice(AsciiCharSet chars) {
+      this.setSoftMark();
+      // The mark keeps the slice's bytes in the buffer on refills
+      long start = this.bufferOffset + this.pos;
+      while (true) {
+        int p = Scanner.skip(this.buffer, this.pos, this.endpos, chars);
+        if (p > this.pos) {
+          this.pos = p;
+          this.lastCharLength = 1;
+        }
+        if (p < this.endpos || !this.fill()) {
+          break;
+        }
+      }
+      int offset = (int)(start - this.bufferOffset);
+      if (this.pos > offset) {
+        this.sliced = true;
+      }
+      return new AsciiSlice(this.buffer, offset, this.pos - offset);
+    }
+
+    /**
+     * Reads characters into an array.
+     * @param buf An array to store the code points in.
+     * @param offset Index in {@code buf} of the first code point to store.
+     * @param unitCount Maximum number of code points to read.
+     * @return The number of code points read.
+     * @throws java.lang.NullPointerException The parameter {@code buf} is null.
+     */
+    public int Read(int[] buf, int offset, int unitCount) {
+      if (buf == null) {
+        throw new NullPointerException("buf");
+      }
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset less than 0 (" + offset +
+          ")");
+      }
+      if (unitCount < 0) {
+        throw new IllegalArgumentException("unitCount less than 0 (" +
+          unitCount + ")");
+      }
+      if (offset + unitCount > buf.length) {
+        throw new IllegalArgumentException("offset+unitCount more than " +
+          buf.length + " (" + (offset + unitCount) + ")");
+      }
+      int count = 0;
+      while (count < unitCount) {
+        int c = this.ReadChar();
+        if (c < 0) {
+          break;
+        }
+        buf[offset + count] = c;
+        ++count;
+      }
+      return count;
+    }
+
+    /**
+     * Gets the byte position in the input from the last-set mark.
+     * @return The position from the mark.
+     */
+    public int getMarkPosition() {
+      return this.haveMark ? this.pos - this.markpos : 0;
+    }
+
+    /**
+     * Moves the input position back the given number of characters.
+     * @param count The number of characters to move back.
+     * @throws IllegalStateException No mark is set, or the new position would
+     * be before the mark.
+     */
+    public void moveBack(int count) {
+      if (count < 0) {
+        throw new IllegalArgumentException("count less than 0 (" + count +
+          ")");
+      }
+      if (!this.haveMark) {
+        throw new IllegalStateException();
+      }
+      int p = this.pos;
+      if (count == 1 && this.lastCharLength > 0) {
+        p -= this.lastCharLength;
+      } else {
+        for (int i = 0; i < count; ++i) {
+          --p;
+          while (p > this.markpos && (this.buffer[p] & 0xc0) == 0x80) {
+            --p;
+          }
+        }
+      }
+      if (p < this.markpos) {
+        throw new IllegalStateException();
+      }
+      this.pos = p;
+      this.lastCharLength = 0;
+    }
+
+    /**
+     * Sets a mark on the input's current position.
+     * @return The position from the new mark, which is 0.
+     */
+    public int setHardMark() {
+      this.markpos = this.pos;
+      this.haveMark = true;
+      return 0;
+    }
+
+    /**
+     * Sets the input's position from the last set mark.
+     * @param pos Byte offset from the last set mark, as returned by
+     * getMarkPosition.
+     * @throws IllegalStateException No mark is set, or the position is out of
+     * range.
+     */
+    public void setMarkPosition(int pos) {
+      if (!this.haveMark || pos < 0 || this.markpos + pos > this.endpos) {
+        throw new IllegalStateException();
+      }
+      this.pos = this.markpos + pos;
+      this.lastCharLength = 0;
+    }
+
+    /**
+     * If no mark is set, sets a mark on the input's current position.
+     * @return The position from the last set mark.
+     */
+    public int setSoftMark() {
+      if (!this.haveMark) {
+        this.setHardMark();
+      }
+      return this.getMarkPosition();
+    }
+  }
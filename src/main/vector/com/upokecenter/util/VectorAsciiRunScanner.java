@@ -0,0 +1,46 @@
+package com.upokecenter.util;
+/*
+Written in 2013 by Peter Occil.
+Any copyright is dedicated to the Public Domain.
+http://creativecommons.org/publicdomain/zero/1.0/
+
+If you like this, you should donate to Peter O.
+at: http://peteroupc.github.io/
+*/
+
+import jdk.incubator.vector.*;
+
+    /**
+     * An ASCII run scanner that uses the Vector API to check as many bytes at
+     * a time as the processor's preferred vector size allows (such as 32 or
+     * 64 bytes). This class is compiled only with the "vector" build
+     * profile and loaded only if the {@code jdk.incubator.vector} module is
+     * present.
+     */
+  final class VectorAsciiRunScanner extends AsciiRunScanner {
+    private static final VectorSpecies<Byte> Species =
+      ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public int skip(byte[] bytes, int start, int end, AsciiCharSet set) {
+      int length = Species.length();
+      byte first = (byte)set.getFirst();
+      byte last = (byte)set.getLast();
+      byte[] excluded = set.getExcluded();
+      int i = start;
+      while (end - i >= length) {
+        ByteVector v = ByteVector.fromArray(Species, bytes, i);
+        // Bytes above 0x7F are negative, so they're also below the range
+        VectorMask<Byte> stop = v.compare(VectorOperators.LT, first)
+          .or(v.compare(VectorOperators.GT, last));
+        for (int j = 0; j < excluded.length; ++j) {
+          stop = stop.or(v.compare(VectorOperators.EQ, excluded[j]));
+        }
+        if (stop.anyTrue()) {
+          return i + stop.firstTrue();
+        }
+        i += length;
+      }
+      return super.skip(bytes, i, end, set);
+    }
+  }